@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class FeedConfig {
+
+    /**
+     * Пул потоков рассылки событий ленты подписчикам.
+     * Подписки не занимают потоков, пока им нечего отправить.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService feedStreamExecutor(FeedProperties feedProperties) {
+        return Executors.newFixedThreadPool(feedProperties.getStream().getDispatchThreads());
+    }
+}
@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки ленты событий пользователей.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.feed")
+public class FeedProperties {
+
+    private final Writer writer = new Writer();
+
+    private final Stream stream = new Stream();
+
+    private final Timeline timeline = new Timeline();
+
+    private final Retention retention = new Retention();
+
+    @Data
+    public static class Writer {
+
+        /**
+         * Записывать события фоновым потоком пачками.
+         * При выключенной настройке события записываются
+         * синхронно в потоке запроса. В асинхронном режиме
+         * события из буфера теряются при аварийном
+         * завершении процесса.
+         */
+        private boolean asyncEnabled = true;
+
+        /**
+         * Ёмкость буфера событий, ожидающих записи.
+         */
+        private int capacity = 10000;
+
+        /**
+         * Размер пачки, при накоплении которой
+         * запись начинается без ожидания интервала.
+         */
+        private int flushSize = 500;
+
+        /**
+         * Наибольшее время ожидания события в буфере.
+         */
+        private long flushIntervalMs = 200;
+
+        /**
+         * Время ожидания фонового потока при остановке
+         * приложения перед записью остатка буфера.
+         */
+        private long shutdownTimeoutMs = 5000;
+    }
+
+    @Data
+    public static class Stream {
+
+        /**
+         * Наибольшее число одновременных подписок
+         * на ленты всех пользователей.
+         */
+        private int maxSubscribers = 1000;
+
+        /**
+         * Наибольшее число одновременных подписок
+         * на ленту одного пользователя.
+         */
+        private int maxSubscribersPerUser = 5;
+
+        /**
+         * Время жизни подписки, после которого клиент
+         * переподключается с заголовком Last-Event-ID.
+         */
+        private long timeoutMs = 1800000;
+
+        /**
+         * Число событий, читаемых из хранилища за один запрос
+         * при рассылке и при догоняющем чтении.
+         */
+        private int batchSize = 100;
+
+        /**
+         * Число потоков рассылки событий подписчикам.
+         */
+        private int dispatchThreads = 2;
+    }
+
+    @Data
+    public static class Timeline {
+
+        /**
+         * Наибольшее число событий в ленте друзей пользователя.
+         */
+        private int inboxSize = 1000;
+
+        /**
+         * Число подписчиков, больше которого события пользователя
+         * не рассылаются по лентам друзей при записи, а добавляются
+         * в ленты его подписчиков при чтении.
+         */
+        private int fanOutFollowersLimit = 10000;
+
+        /**
+         * Интервал усечения лент друзей до inbox-size событий.
+         */
+        private long trimIntervalMs = 3600000;
+    }
+
+    @Data
+    public static class Retention {
+
+        /**
+         * Включает периодический перенос старых событий в архив.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Возраст события в днях, после которого
+         * оно переносится в архив.
+         */
+        private int maxAgeDays = 365;
+
+        /**
+         * Наибольшее число событий, переносимых
+         * в одной транзакции.
+         */
+        private int batchSize = 1000;
+    }
+}
@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки предложений друзей.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.friends.suggestions")
+public class FriendSuggestionProperties {
+
+    /**
+     * Наибольшее число друзей, просматриваемых на каждом
+     * из двух шагов обхода; у пользователей с большим числом
+     * друзей берётся равномерная выборка.
+     */
+    private int maxFriendsPerHop = 1000;
+
+    /**
+     * Количество предложений, которое рассчитывается
+     * и хранится для каждого пользователя.
+     */
+    private int size = 100;
+}
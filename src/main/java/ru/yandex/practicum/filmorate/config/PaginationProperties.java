@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки постраничной выдачи списков.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.pagination")
+public class PaginationProperties {
+
+    /**
+     * Разрешает выдачу списка целиком, если в запросе
+     * не переданы параметры курсора и размера страницы.
+     */
+    private boolean unpaginatedListsEnabled = true;
+
+    private int defaultLimit = 100;
+
+    private int maxLimit = 1000;
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки проверки планов выполнения запросов при старте.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.query-plans")
+public class QueryPlanProperties {
+
+    /**
+     * Реакция на запрос, план которого читает таблицу или индекс
+     * целиком либо сортирует все найденные строки перед LIMIT:
+     * warn - записать предупреждение в лог, fail - прервать запуск,
+     * off - не проверять планы.
+     */
+    private Verification verification = Verification.WARN;
+
+    public enum Verification {
+        WARN,
+        FAIL,
+        OFF
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class RecommendationConfig {
+
+    /**
+     * Пул потоков фоновых расчётов рекомендаций,
+     * отдельный от общего пула параллельных стримов.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ForkJoinPool recommendationPool(RecommendationProperties recommendationProperties) {
+        int parallelism = recommendationProperties.getParallelism();
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
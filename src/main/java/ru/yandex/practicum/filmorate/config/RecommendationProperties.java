@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки рекомендаций фильмов.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.recommendations")
+public class RecommendationProperties {
+
+    /**
+     * Количество ближайших соседей, из лайков
+     * которых складываются рекомендации.
+     */
+    private int neighbors = 10;
+
+    /**
+     * Количество похожих фильмов, которое
+     * хранится для каждого фильма.
+     */
+    private int similarFilms = 50;
+
+    /**
+     * Число потоков фонового расчёта соседей,
+     * 0 - по числу процессоров.
+     */
+    private int parallelism = 0;
+
+    /**
+     * Способ поиска кандидатов в соседи: exact - все пользователи
+     * с общими лайками, minhash - пользователи, совпавшие
+     * с запросившим хотя бы в одной полосе LSH.
+     */
+    private NeighborSearch neighborSearch = NeighborSearch.EXACT;
+
+    private int minhashBands = 20;
+
+    private int minhashRows = 2;
+
+    /**
+     * Наибольшее число пользователей в кэше рекомендаций.
+     */
+    private int cacheSize = 10_000;
+
+    /**
+     * Время жизни рекомендаций в кэше.
+     */
+    private long cacheTtlMs = 300_000;
+
+    public enum NeighborSearch {
+        EXACT,
+        MINHASH
+    }
+}
@@ -1,11 +1,23 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BulkLikeResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -13,9 +25,13 @@ import java.util.List;
 public class FilmController {
 
     private final FilmService filmService;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final ObjectMapper objectMapper;
 
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, JsonArrayStreamer jsonArrayStreamer, ObjectMapper objectMapper) {
         this.filmService = filmService;
+        this.jsonArrayStreamer = jsonArrayStreamer;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -28,14 +44,42 @@ public class FilmController {
         filmService.addLikeFilm(id, userId);
     }
 
+    /**
+     * Тело запроса - JSON-массив или NDJSON объектов
+     * {"filmId": ..., "userId": ...}, которое читается
+     * потоком, не целиком.
+     */
+    @PostMapping(path = "/likes/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkLikeResult addLikesBulk(InputStream body) throws IOException {
+        try (MappingIterator<FilmLike> likes = objectMapper.readerFor(FilmLike.class).readValues(body)) {
+            return filmService.addLikesBulk(likes);
+        } catch (JsonProcessingException e) {
+            throw malformedBulkLikes(e.getOriginalMessage());
+        } catch (RuntimeJsonMappingException e) {
+            throw malformedBulkLikes(e.getMessage());
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof JsonProcessingException) {
+                throw malformedBulkLikes(((JsonProcessingException) e.getCause()).getOriginalMessage());
+            }
+            throw e;
+        }
+    }
+
     @PutMapping()
     public Film updateFilm(@Valid @RequestBody Film film) {
         return filmService.updateFilm(film);
     }
 
     @GetMapping
-    public List<Film> getFilms() {
-        return filmService.getFilms();
+    public ResponseEntity<List<Film>> getFilms(@RequestParam(required = false) Long after,
+                                               @RequestParam(required = false) Integer limit) {
+        return CursorPageResponses.toResponse(filmService.getFilms(after, limit));
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamFilms() {
+        return jsonArrayStreamer.stream(filmService::streamFilms);
     }
 
     @GetMapping("/{id}")
@@ -50,6 +94,11 @@ public class FilmController {
         return filmService.getListPopularFilm(count, genreId, year);
     }
 
+    @GetMapping("/{id}/similar")
+    public List<Film> getSimilarFilms(@PathVariable Long id, @RequestParam(defaultValue = "10") Integer count) {
+        return filmService.getSimilarFilms(id, count);
+    }
+
     @GetMapping("/director/{directorId}")
     public List<Film> getFilmsByDirector(@PathVariable Long directorId, @RequestParam String sortBy) {
         return filmService.getFilmsByDirector(directorId, sortBy);
@@ -75,5 +124,14 @@ public class FilmController {
                                                    @RequestParam String by) {
         return filmService.searchFilmsByTitleOrDirector(query, by);
     }
-}
 
+    /**
+     * Лайки, прочитанные до ошибки, уже сохранены,
+     * поэтому запрос можно повторить целиком.
+     */
+    private static ValidationException malformedBulkLikes(String reason) {
+        return new ValidationException(String.format(
+                "The bulk like request is malformed, likes before the error are saved and the request can be "
+                        + "repeated: %s", reason));
+    }
+}
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.service.ReviewService;
@@ -42,9 +43,11 @@ public class ReviewController {
     }
 
     @GetMapping
-    public List<Review> getReviewsByFilmIdOrAll(@RequestParam(required = false) Long filmId,
-                                                @RequestParam(defaultValue = "10") Long count) {
-        return reviewService.getReviewsByFilmIdOrAll(filmId, count);
+    public ResponseEntity<List<Review>> getReviews(@RequestParam(required = false) Long filmId,
+                                                   @RequestParam(required = false) String after,
+                                                   @RequestParam(required = false) Integer limit,
+                                                   @RequestParam(defaultValue = "10") Long count) {
+        return CursorPageResponses.toResponse(reviewService.getReviews(filmId, after, limit, count));
     }
 
     @DeleteMapping("/{id}")
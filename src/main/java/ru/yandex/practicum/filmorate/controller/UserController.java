@@ -1,7 +1,11 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
@@ -18,6 +22,7 @@ public class UserController {
 
     private final UserService userService;
     private final FilmService filmService;
+    private final JsonArrayStreamer jsonArrayStreamer;
 
     @PostMapping
     public User createUser(@Valid @RequestBody User user) {
@@ -35,8 +40,14 @@ public class UserController {
     }
 
     @GetMapping
-    public List<User> getUsers() {
-        return userService.getUsers();
+    public ResponseEntity<List<User>> getUsers(@RequestParam(required = false) Long after,
+                                               @RequestParam(required = false) Integer limit) {
+        return CursorPageResponses.toResponse(userService.getUsers(after, limit));
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        return jsonArrayStreamer.stream(userService::streamUsers);
     }
 
     @GetMapping("/{id}")
@@ -54,6 +65,11 @@ public class UserController {
         return userService.getCommonFriends(id, secondId);
     }
 
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable Long id, @RequestParam(defaultValue = "10") Integer count) {
+        return userService.getFriendSuggestions(id, count);
+    }
+
     @DeleteMapping("/{userId}")
     public void deleteUserById(@PathVariable Long userId) {
         userService.removeUserById(userId);
@@ -70,7 +86,22 @@ public class UserController {
     }
 
     @GetMapping("{id}/feed")
-    public List<Event> getFeed(@PathVariable Long id) {
-        return userService.getFeed(id);
+    public ResponseEntity<List<Event>> getFeed(@PathVariable Long id,
+                                               @RequestParam(required = false) Long before,
+                                               @RequestParam(required = false) Integer limit) {
+        return CursorPageResponses.toResponse(userService.getFeed(id, before, limit));
+    }
+
+    @GetMapping("{id}/timeline")
+    public ResponseEntity<List<Event>> getTimeline(@PathVariable Long id,
+                                                   @RequestParam(required = false) Long before,
+                                                   @RequestParam(required = false) Integer limit) {
+        return CursorPageResponses.toResponse(userService.getTimeline(id, before, limit));
+    }
+
+    @GetMapping(path = "{id}/feed/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamFeed(@PathVariable Long id,
+                                 @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        return userService.streamFeed(id, lastEventId);
     }
 }
@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.exception;
+
+public class TooManySubscribersException extends RuntimeException {
+
+    public TooManySubscribersException(String message) {
+        super(message);
+    }
+}
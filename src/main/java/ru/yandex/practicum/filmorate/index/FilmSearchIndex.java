@@ -0,0 +1,226 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Инвертированный триграммный индекс по названиям фильмов и именам
+ * режиссёров, который хранится в памяти. Загружается из хранилища
+ * при старте и обновляется при изменении фильмов и режиссёров.
+ * Изменения индекса сериализуются, чтение выполняется без блокировок.
+ */
+@Component
+@Slf4j
+public class FilmSearchIndex {
+
+    private static final int GRAM_SIZE = 3;
+
+    private final FilmStorage filmStorage;
+    private final ConcurrentMap<Long, String> titlesByFilmId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Long>> filmsIdByTitleGram = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, String> namesByDirectorId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Long>> directorsIdByNameGram = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Set<Long>> filmsIdByDirectorId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Set<Long>> directorsIdByFilmId = new ConcurrentHashMap<>();
+
+    public FilmSearchIndex(FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    @PostConstruct
+    public void load() {
+        List<Film> films = filmStorage.getFilms();
+        for (Film film : films) {
+            indexFilm(film);
+        }
+        log.info("Search index is loaded with {} films and {} directors", titlesByFilmId.size(),
+                namesByDirectorId.size());
+    }
+
+    /**
+     * Метод заменяет индекс содержимым хранилища.
+     */
+    public synchronized void reload() {
+        titlesByFilmId.clear();
+        filmsIdByTitleGram.clear();
+        namesByDirectorId.clear();
+        directorsIdByNameGram.clear();
+        filmsIdByDirectorId.clear();
+        directorsIdByFilmId.clear();
+        load();
+    }
+
+    /**
+     * Метод добавляет фильм в индекс или переиндексирует его
+     * название и список режиссёров.
+     *
+     * @param film фильм с заполненными режиссёрами.
+     */
+    public synchronized void indexFilm(Film film) {
+        Long filmId = film.getId();
+        String oldTitle = titlesByFilmId.put(filmId, normalize(film.getName()));
+        if (oldTitle != null) {
+            removeGrams(filmsIdByTitleGram, oldTitle, filmId);
+        }
+        addGrams(filmsIdByTitleGram, titlesByFilmId.get(filmId), filmId);
+
+        unlinkDirectors(filmId);
+        Set<Long> directorsId = ConcurrentHashMap.newKeySet();
+        for (Director director : film.getDirectors()) {
+            directorsId.add(director.getId());
+            filmsIdByDirectorId.computeIfAbsent(director.getId(), k -> ConcurrentHashMap.newKeySet()).add(filmId);
+            if (director.getName() != null && !namesByDirectorId.containsKey(director.getId())) {
+                indexDirectorName(director.getId(), director.getName());
+            }
+        }
+        directorsIdByFilmId.put(filmId, directorsId);
+    }
+
+    public synchronized void removeFilm(Long filmId) {
+        String title = titlesByFilmId.remove(filmId);
+        if (title != null) {
+            removeGrams(filmsIdByTitleGram, title, filmId);
+        }
+        unlinkDirectors(filmId);
+    }
+
+    public synchronized void updateDirector(Director director) {
+        indexDirectorName(director.getId(), director.getName());
+    }
+
+    public synchronized void removeDirector(Long directorId) {
+        String name = namesByDirectorId.remove(directorId);
+        if (name != null) {
+            removeGrams(directorsIdByNameGram, name, directorId);
+        }
+        Set<Long> filmsId = filmsIdByDirectorId.remove(directorId);
+        if (filmsId != null) {
+            for (Long filmId : filmsId) {
+                Set<Long> directorsId = directorsIdByFilmId.get(filmId);
+                if (directorsId != null) {
+                    directorsId.remove(directorId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Метод возвращает идентификаторы фильмов, название или имя
+     * режиссёра которых содержит строку запроса без учёта регистра.
+     *
+     * @param query      текст для поиска.
+     * @param byTitle    искать по названию.
+     * @param byDirector искать по режиссёру.
+     * @return Идентификаторы найденных фильмов.
+     */
+    public Set<Long> search(String query, boolean byTitle, boolean byDirector) {
+        String normalizedQuery = normalize(query);
+        Set<Long> filmsId = new LinkedHashSet<>();
+        if (byTitle) {
+            filmsId.addAll(findMatches(normalizedQuery, titlesByFilmId, filmsIdByTitleGram));
+        }
+        if (byDirector) {
+            for (Long directorId : findMatches(normalizedQuery, namesByDirectorId, directorsIdByNameGram)) {
+                filmsId.addAll(filmsIdByDirectorId.getOrDefault(directorId, Collections.emptySet()));
+            }
+        }
+        return filmsId;
+    }
+
+    private void indexDirectorName(Long directorId, String name) {
+        String oldName = namesByDirectorId.put(directorId, normalize(name));
+        if (oldName != null) {
+            removeGrams(directorsIdByNameGram, oldName, directorId);
+        }
+        addGrams(directorsIdByNameGram, namesByDirectorId.get(directorId), directorId);
+    }
+
+    private void unlinkDirectors(Long filmId) {
+        Set<Long> oldDirectorsId = directorsIdByFilmId.remove(filmId);
+        if (oldDirectorsId != null) {
+            for (Long directorId : oldDirectorsId) {
+                Set<Long> filmsId = filmsIdByDirectorId.get(directorId);
+                if (filmsId != null) {
+                    filmsId.remove(filmId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Кандидаты выбираются пересечением списков по всем триграммам
+     * запроса, начиная с самого короткого, и затем проверяются
+     * вхождением строки. Запросы короче триграммы проверяются
+     * перебором нормализованных строк в памяти.
+     */
+    private Set<Long> findMatches(String query, Map<Long, String> texts, Map<String, Set<Long>> idsByGram) {
+        Set<Long> matches = new HashSet<>();
+        if (query.length() < GRAM_SIZE) {
+            texts.forEach((id, text) -> {
+                if (text.contains(query)) {
+                    matches.add(id);
+                }
+            });
+            return matches;
+        }
+
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String gram : getGrams(query)) {
+            Set<Long> posting = idsByGram.get(gram);
+            if (posting == null || posting.isEmpty()) {
+                return matches;
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        for (Long id : postings.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < postings.size() && inAll; i++) {
+                inAll = postings.get(i).contains(id);
+            }
+            String text = texts.get(id);
+            if (inAll && text != null && text.contains(query)) {
+                matches.add(id);
+            }
+        }
+        return matches;
+    }
+
+    private static void addGrams(Map<String, Set<Long>> idsByGram, String text, Long id) {
+        for (String gram : getGrams(text)) {
+            idsByGram.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private static void removeGrams(Map<String, Set<Long>> idsByGram, String text, Long id) {
+        for (String gram : getGrams(text)) {
+            Set<Long> ids = idsByGram.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    idsByGram.remove(gram, ids);
+                }
+            }
+        }
+    }
+
+    private static Set<String> getGrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
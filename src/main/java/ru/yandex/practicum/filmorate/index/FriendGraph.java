@@ -0,0 +1,181 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Граф дружбы в памяти: для каждого пользователя отсортированный
+ * массив идентификаторов добавленных им друзей и обратный массив
+ * пользователей, добавивших его в друзья. Массивы заменяются
+ * целиком при изменении, поэтому чтение выполняется без блокировок,
+ * а общие друзья находятся слиянием двух отсортированных массивов.
+ */
+@Component
+@Slf4j
+public class FriendGraph {
+
+    private static final long[] NO_USERS = new long[0];
+
+    private final UserStorage userStorage;
+    private final ConcurrentMap<Long, long[]> friendsIdByUserId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, long[]> followersIdByUserId = new ConcurrentHashMap<>();
+
+    public FriendGraph(UserStorage userStorage) {
+        this.userStorage = userStorage;
+    }
+
+    @PostConstruct
+    public synchronized void load() {
+        Map<Long, List<Long>> friendsId = new HashMap<>();
+        Map<Long, List<Long>> followersId = new HashMap<>();
+        List<Map.Entry<Long, Long>> friendships = userStorage.getEntriesUserIdFriendId();
+        for (Map.Entry<Long, Long> friendship : friendships) {
+            friendsId.computeIfAbsent(friendship.getKey(), k -> new ArrayList<>()).add(friendship.getValue());
+            followersId.computeIfAbsent(friendship.getValue(), k -> new ArrayList<>()).add(friendship.getKey());
+        }
+        friendsId.forEach((userId, ids) -> friendsIdByUserId.put(userId, toSortedArray(ids)));
+        followersId.forEach((userId, ids) -> followersIdByUserId.put(userId, toSortedArray(ids)));
+        log.info("Friend graph is loaded with {} friendships", friendships.size());
+    }
+
+    /**
+     * Метод заменяет граф содержимым хранилища, например
+     * после пересоздания таблиц.
+     */
+    public synchronized void reload() {
+        friendsIdByUserId.clear();
+        followersIdByUserId.clear();
+        load();
+    }
+
+    public synchronized void addFriend(Long userId, Long friendId) {
+        friendsIdByUserId.put(userId, with(getFriends(friendsIdByUserId, userId), friendId));
+        followersIdByUserId.put(friendId, with(getFriends(followersIdByUserId, friendId), userId));
+    }
+
+    public synchronized void removeFriend(Long userId, Long friendId) {
+        put(friendsIdByUserId, userId, without(getFriends(friendsIdByUserId, userId), friendId));
+        put(followersIdByUserId, friendId, without(getFriends(followersIdByUserId, friendId), userId));
+    }
+
+    public synchronized void removeUser(Long userId) {
+        for (long friendId : getFriends(friendsIdByUserId, userId)) {
+            put(followersIdByUserId, friendId, without(getFriends(followersIdByUserId, friendId), userId));
+        }
+        for (long followerId : getFriends(followersIdByUserId, userId)) {
+            put(friendsIdByUserId, followerId, without(getFriends(friendsIdByUserId, followerId), userId));
+        }
+        friendsIdByUserId.remove(userId);
+        followersIdByUserId.remove(userId);
+    }
+
+    public boolean isFriend(Long userId, Long friendId) {
+        return Arrays.binarySearch(getFriends(friendsIdByUserId, userId), friendId) >= 0;
+    }
+
+    public List<Long> getFriendsId(Long userId) {
+        return toList(getFriends(friendsIdByUserId, userId));
+    }
+
+    public List<Long> getFollowersId(Long userId) {
+        return toList(getFriends(followersIdByUserId, userId));
+    }
+
+    long[] getFriendsArray(Long userId) {
+        return getFriends(friendsIdByUserId, userId);
+    }
+
+    public int getFriendsCount(Long userId) {
+        return getFriends(friendsIdByUserId, userId).length;
+    }
+
+    public int getFollowersCount(Long userId) {
+        return getFriends(followersIdByUserId, userId).length;
+    }
+
+    /**
+     * Метод возвращает общих друзей двух пользователей
+     * слиянием отсортированных массивов друзей.
+     *
+     * @param userId   идентификатор первого пользователя.
+     * @param friendId идентификатор второго пользователя.
+     * @return Идентификаторы общих друзей по возрастанию.
+     */
+    public List<Long> getCommonFriendsId(Long userId, Long friendId) {
+        long[] first = getFriends(friendsIdByUserId, userId);
+        long[] second = getFriends(friendsIdByUserId, friendId);
+        List<Long> commonFriendsId = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                commonFriendsId.add(first[i]);
+                i++;
+                j++;
+            }
+        }
+        return commonFriendsId;
+    }
+
+    private static long[] getFriends(Map<Long, long[]> adjacency, Long userId) {
+        return adjacency.getOrDefault(userId, NO_USERS);
+    }
+
+    private static void put(Map<Long, long[]> adjacency, Long userId, long[] ids) {
+        if (ids.length == 0) {
+            adjacency.remove(userId);
+        } else {
+            adjacency.put(userId, ids);
+        }
+    }
+
+    private static long[] with(long[] ids, long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return ids;
+        }
+        int position = -index - 1;
+        long[] newIds = new long[ids.length + 1];
+        System.arraycopy(ids, 0, newIds, 0, position);
+        newIds[position] = id;
+        System.arraycopy(ids, position, newIds, position + 1, ids.length - position);
+        return newIds;
+    }
+
+    private static long[] without(long[] ids, long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return ids;
+        }
+        long[] newIds = new long[ids.length - 1];
+        System.arraycopy(ids, 0, newIds, 0, index);
+        System.arraycopy(ids, index + 1, newIds, index, ids.length - index - 1);
+        return newIds;
+    }
+
+    private static long[] toSortedArray(List<Long> ids) {
+        return ids.stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    private static List<Long> toList(long[] ids) {
+        List<Long> list = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+}
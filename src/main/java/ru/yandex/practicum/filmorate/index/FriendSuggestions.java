@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.config.FriendSuggestionProperties;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Предложения друзей по числу общих друзей: кандидаты - друзья
+ * друзей пользователя, которых он ещё не добавил. Обход ограничен
+ * двумя шагами и выборкой друзей на каждом шаге. Результат
+ * хранится для каждого пользователя и сбрасывается, когда меняются
+ * друзья самого пользователя или кого-то из его друзей.
+ */
+@Component
+public class FriendSuggestions {
+
+    private final FriendGraph friendGraph;
+    private final int maxFriendsPerHop;
+    private final int size;
+    private final ConcurrentMap<Long, List<Long>> suggestedUsersIdByUserId = new ConcurrentHashMap<>();
+
+    public FriendSuggestions(FriendGraph friendGraph, FriendSuggestionProperties friendSuggestionProperties) {
+        this.friendGraph = friendGraph;
+        this.maxFriendsPerHop = friendSuggestionProperties.getMaxFriendsPerHop();
+        this.size = friendSuggestionProperties.getSize();
+    }
+
+    /**
+     * Метод возвращает пользователей, рекомендованных в друзья,
+     * по убыванию числа общих друзей.
+     *
+     * @param userId идентификатор пользователя.
+     * @param count  размер списка.
+     * @return Идентификаторы предложенных пользователей.
+     */
+    public List<Long> getSuggestedUsersId(Long userId, int count) {
+        List<Long> suggestedUsersId = suggestedUsersIdByUserId.computeIfAbsent(userId, this::computeSuggestedUsersId);
+        return suggestedUsersId.subList(0, Math.min(count, suggestedUsersId.size()));
+    }
+
+    /**
+     * Метод сбрасывает предложения пользователя, друзья которого
+     * изменились, и пользователей, у которых он в друзьях.
+     *
+     * @param userId идентификатор пользователя.
+     */
+    public void onFriendsChanged(Long userId) {
+        suggestedUsersIdByUserId.remove(userId);
+        for (Long followerId : friendGraph.getFollowersId(userId)) {
+            suggestedUsersIdByUserId.remove(followerId);
+        }
+    }
+
+    /**
+     * Метод сбрасывает предложения, в которых мог участвовать
+     * удаляемый пользователь: его собственные, пользователей,
+     * у которых он в друзьях, и их подписчиков, которым он
+     * мог быть предложен. Вызывается до удаления из графа.
+     *
+     * @param userId идентификатор пользователя.
+     */
+    public void onUserRemoved(Long userId) {
+        suggestedUsersIdByUserId.remove(userId);
+        for (Long followerId : friendGraph.getFollowersId(userId)) {
+            suggestedUsersIdByUserId.remove(followerId);
+            for (Long secondFollowerId : friendGraph.getFollowersId(followerId)) {
+                suggestedUsersIdByUserId.remove(secondFollowerId);
+            }
+        }
+    }
+
+    /**
+     * Метод сбрасывает предложения всех пользователей.
+     */
+    public void reload() {
+        suggestedUsersIdByUserId.clear();
+    }
+
+    private List<Long> computeSuggestedUsersId(Long userId) {
+        long[] friendsId = friendGraph.getFriendsArray(userId);
+        Map<Long, Integer> mutualFriends = new HashMap<>();
+        for (long friendId : sample(friendsId)) {
+            for (long candidateId : sample(friendGraph.getFriendsArray(friendId))) {
+                if (candidateId != userId && Arrays.binarySearch(friendsId, candidateId) < 0) {
+                    mutualFriends.merge(candidateId, 1, Integer::sum);
+                }
+            }
+        }
+
+        Comparator<Long> byMutualFriends = Comparator.<Long>comparingInt(mutualFriends::get)
+                .thenComparing(Comparator.<Long>reverseOrder());
+        PriorityQueue<Long> topUsersId = new PriorityQueue<>(byMutualFriends);
+        for (Long candidateId : mutualFriends.keySet()) {
+            topUsersId.add(candidateId);
+            if (topUsersId.size() > size) {
+                topUsersId.poll();
+            }
+        }
+        Long[] suggestedUsersId = new Long[topUsersId.size()];
+        for (int i = suggestedUsersId.length - 1; i >= 0; i--) {
+            suggestedUsersId[i] = topUsersId.poll();
+        }
+        return Collections.unmodifiableList(Arrays.asList(suggestedUsersId));
+    }
+
+    private long[] sample(long[] usersId) {
+        if (usersId.length <= maxFriendsPerHop) {
+            return usersId;
+        }
+        long[] sample = new long[maxFriendsPerHop];
+        for (int i = 0; i < maxFriendsPerHop; i++) {
+            sample[i] = usersId[(int) ((long) i * usersId.length / maxFriendsPerHop)];
+        }
+        return sample;
+    }
+}
@@ -0,0 +1,218 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Неизменяемое сжатое битовое множество идентификаторов. Хранятся только
+ * ненулевые 64-битные слова и их упорядоченные номера, поэтому память
+ * пропорциональна числу занятых слов, а не максимальному идентификатору.
+ * Изменения возвращают новый экземпляр, что позволяет читать множество
+ * без блокировок.
+ */
+public final class IdBitmap {
+
+    public static final IdBitmap EMPTY = new IdBitmap(new int[0], new long[0]);
+
+    private final int[] keys;
+    private final long[] words;
+    private final int cardinality;
+
+    private IdBitmap(int[] keys, long[] words) {
+        this.keys = keys;
+        this.words = words;
+        int bits = 0;
+        for (long word : words) {
+            bits += Long.bitCount(word);
+        }
+        this.cardinality = bits;
+    }
+
+    public static IdBitmap of(Collection<Long> ids) {
+        long[] sortedIds = ids.stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+        int[] keys = new int[sortedIds.length];
+        long[] words = new long[sortedIds.length];
+        int size = 0;
+        for (long id : sortedIds) {
+            int key = getKey(id);
+            if (size == 0 || keys[size - 1] != key) {
+                keys[size] = key;
+                size++;
+            }
+            words[size - 1] |= getBit(id);
+        }
+        return new IdBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(words, size));
+    }
+
+    public boolean contains(long id) {
+        int index = Arrays.binarySearch(keys, getKey(id));
+        return index >= 0 && (words[index] & getBit(id)) != 0;
+    }
+
+    public IdBitmap with(long id) {
+        int key = getKey(id);
+        long bit = getBit(id);
+        int index = Arrays.binarySearch(keys, key);
+        if (index >= 0) {
+            if ((words[index] & bit) != 0) {
+                return this;
+            }
+            long[] newWords = words.clone();
+            newWords[index] |= bit;
+            return new IdBitmap(keys, newWords);
+        }
+
+        int position = -index - 1;
+        int[] newKeys = new int[keys.length + 1];
+        long[] newWords = new long[words.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, position);
+        System.arraycopy(words, 0, newWords, 0, position);
+        newKeys[position] = key;
+        newWords[position] = bit;
+        System.arraycopy(keys, position, newKeys, position + 1, keys.length - position);
+        System.arraycopy(words, position, newWords, position + 1, words.length - position);
+        return new IdBitmap(newKeys, newWords);
+    }
+
+    public IdBitmap without(long id) {
+        long bit = getBit(id);
+        int index = Arrays.binarySearch(keys, getKey(id));
+        if (index < 0 || (words[index] & bit) == 0) {
+            return this;
+        }
+
+        long word = words[index] & ~bit;
+        if (word != 0) {
+            long[] newWords = words.clone();
+            newWords[index] = word;
+            return new IdBitmap(keys, newWords);
+        }
+        int[] newKeys = new int[keys.length - 1];
+        long[] newWords = new long[words.length - 1];
+        System.arraycopy(keys, 0, newKeys, 0, index);
+        System.arraycopy(words, 0, newWords, 0, index);
+        System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+        System.arraycopy(words, index + 1, newWords, index, words.length - index - 1);
+        return new IdBitmap(newKeys, newWords);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IdBitmap other = (IdBitmap) o;
+        return Arrays.equals(keys, other.keys) && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(keys) + Arrays.hashCode(words);
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Метод возвращает мощность пересечения множеств, вычисленную
+     * слиянием номеров слов и побитовым И совпавших слов.
+     */
+    public int andCardinality(IdBitmap other) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                count += Long.bitCount(words[i] & other.words[j]);
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Метод возвращает идентификаторы, входящие
+     * в оба множества, по возрастанию.
+     */
+    public List<Long> and(IdBitmap other) {
+        List<Long> ids = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                addIds(ids::add, keys[i], words[i] & other.words[j]);
+                i++;
+                j++;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Метод возвращает идентификаторы этого множества,
+     * отсутствующие в другом множестве, по возрастанию.
+     */
+    public List<Long> andNot(IdBitmap other) {
+        List<Long> ids = new ArrayList<>();
+        int j = 0;
+        for (int i = 0; i < keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < keys[i]) {
+                j++;
+            }
+            long word = words[i];
+            if (j < other.keys.length && other.keys[j] == keys[i]) {
+                word &= ~other.words[j];
+            }
+            addIds(ids::add, keys[i], word);
+        }
+        return ids;
+    }
+
+    public void forEach(LongConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            addIds(consumer, keys[i], words[i]);
+        }
+    }
+
+    /**
+     * Оценка занимаемой памяти: заголовки объекта и двух массивов
+     * плюс 12 байт на каждое ненулевое слово.
+     */
+    public long getEstimatedBytes() {
+        return 48 + keys.length * 12L;
+    }
+
+    private static void addIds(LongConsumer consumer, int key, long word) {
+        while (word != 0) {
+            consumer.accept(((long) key << 6) | Long.numberOfTrailingZeros(word));
+            word &= word - 1;
+        }
+    }
+
+    private static int getKey(long id) {
+        return (int) (id >>> 6);
+    }
+
+    private static long getBit(long id) {
+        return 1L << (id & 63);
+    }
+}
@@ -0,0 +1,233 @@
+package ru.yandex.practicum.filmorate.index;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Индекс лайков в памяти: для каждого пользователя множество
+ * понравившихся фильмов и для каждого фильма множество лайкнувших
+ * пользователей. Множества хранятся сжатыми битовыми картами.
+ * Изменения индекса сериализуются, чтение выполняется без блокировок.
+ */
+@Component
+@Slf4j
+public class LikeIndex {
+
+    /**
+     * Оценка памяти на одну запись в словаре: узел ConcurrentHashMap
+     * с упакованным ключом.
+     */
+    private static final long ESTIMATED_BYTES_PER_ENTRY = 48;
+
+    private final FilmStorage filmStorage;
+    private volatile ConcurrentMap<Long, IdBitmap> filmsIdByUserId = new ConcurrentHashMap<>();
+    private volatile ConcurrentMap<Long, IdBitmap> usersIdByFilmId = new ConcurrentHashMap<>();
+    private final Set<Long> changedUsersId = ConcurrentHashMap.newKeySet();
+
+    public LikeIndex(FilmStorage filmStorage, MeterRegistry meterRegistry) {
+        this.filmStorage = filmStorage;
+        Gauge.builder("filmorate.likes.index.size", this, LikeIndex::getLikesCount)
+                .description("Likes tracked by the in-memory like index")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.likes.index.memory", this, LikeIndex::getEstimatedMemoryBytes)
+                .description("Estimated heap footprint of the in-memory like index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void load() {
+        loadFromStorage();
+        log.info("Like index is loaded with {} likes of {} users, estimated size is {} bytes",
+                getLikesCount(), filmsIdByUserId.size(), getEstimatedMemoryBytes());
+    }
+
+    /**
+     * Метод заменяет индекс содержимым таблицы лайков
+     * и сбрасывает отметки об изменении пользователей.
+     */
+    public synchronized void reload() {
+        changedUsersId.clear();
+        loadFromStorage();
+    }
+
+    public synchronized void addLike(Long userId, Long filmId) {
+        changedUsersId.add(userId);
+        add(filmsIdByUserId, userId, filmId);
+        add(usersIdByFilmId, filmId, userId);
+    }
+
+    /**
+     * Метод добавляет пачку лайков под одной блокировкой.
+     *
+     * @param likes новые лайки.
+     */
+    public synchronized void addLikes(Collection<FilmLike> likes) {
+        for (FilmLike like : likes) {
+            addLike(like.getUserId(), like.getFilmId());
+        }
+    }
+
+    public synchronized void removeLike(Long userId, Long filmId) {
+        changedUsersId.add(userId);
+        remove(filmsIdByUserId, userId, filmId);
+        remove(usersIdByFilmId, filmId, userId);
+    }
+
+    public synchronized void removeUser(Long userId) {
+        changedUsersId.remove(userId);
+        IdBitmap filmsId = filmsIdByUserId.remove(userId);
+        if (filmsId != null) {
+            filmsId.forEach(filmId -> remove(usersIdByFilmId, filmId, userId));
+        }
+    }
+
+    public synchronized void removeFilm(Long filmId) {
+        IdBitmap usersId = usersIdByFilmId.remove(filmId);
+        if (usersId != null) {
+            usersId.forEach(userId -> {
+                changedUsersId.add(userId);
+                remove(filmsIdByUserId, userId, filmId);
+            });
+        }
+    }
+
+    public IdBitmap getLikedFilms(Long userId) {
+        return filmsIdByUserId.getOrDefault(userId, IdBitmap.EMPTY);
+    }
+
+    public IdBitmap getLikers(Long filmId) {
+        return usersIdByFilmId.getOrDefault(filmId, IdBitmap.EMPTY);
+    }
+
+    public Map<Long, IdBitmap> getLikedFilmsByUserId() {
+        return Collections.unmodifiableMap(filmsIdByUserId);
+    }
+
+    public Set<Long> getLikedFilmsId() {
+        return Collections.unmodifiableSet(usersIdByFilmId.keySet());
+    }
+
+    public boolean isChanged(Long userId) {
+        return changedUsersId.contains(userId);
+    }
+
+    public void markChanged(Long userId) {
+        changedUsersId.add(userId);
+    }
+
+    /**
+     * Метод возвращает пользователей, лайки которых изменились
+     * с прошлого вызова, и сбрасывает отметки об изменении.
+     *
+     * @return Идентификаторы изменившихся пользователей.
+     */
+    public Set<Long> pollChangedUsersId() {
+        Set<Long> usersId = new HashSet<>();
+        for (Long userId : changedUsersId) {
+            if (changedUsersId.remove(userId)) {
+                usersId.add(userId);
+            }
+        }
+        return usersId;
+    }
+
+    /**
+     * Метод возвращает идентификаторы фильмов,
+     * которые понравились обоим пользователям.
+     *
+     * @param userId   идентификатор пользователя.
+     * @param friendId идентификатор друга.
+     * @return Идентификаторы общих фильмов по возрастанию.
+     */
+    public List<Long> getCommonFilmsId(Long userId, Long friendId) {
+        return getLikedFilms(userId).and(getLikedFilms(friendId));
+    }
+
+    /**
+     * Метод сверяет индекс с таблицей лайков и при расхождении
+     * заменяет его содержимым таблицы. Пользователи, множества
+     * которых не совпали, отмечаются как изменившиеся, чтобы
+     * их соседи были пересчитаны.
+     *
+     * @return Количество пользователей и фильмов, множества которых
+     * не совпали с таблицей лайков.
+     */
+    public synchronized int reconcile() {
+        Map<Long, IdBitmap> indexedFilmsIdByUserId = filmsIdByUserId;
+        Map<Long, IdBitmap> indexedUsersIdByFilmId = usersIdByFilmId;
+        loadFromStorage();
+        Set<Long> mismatchedUsersId = getMismatchedKeys(indexedFilmsIdByUserId, filmsIdByUserId);
+        changedUsersId.addAll(mismatchedUsersId);
+        return mismatchedUsersId.size() + getMismatchedKeys(indexedUsersIdByFilmId, usersIdByFilmId).size();
+    }
+
+    public long getLikesCount() {
+        long likes = 0;
+        for (IdBitmap filmsId : filmsIdByUserId.values()) {
+            likes += filmsId.cardinality();
+        }
+        return likes;
+    }
+
+    public long getEstimatedMemoryBytes() {
+        return getEstimatedMemoryBytes(filmsIdByUserId) + getEstimatedMemoryBytes(usersIdByFilmId);
+    }
+
+    private void loadFromStorage() {
+        Map<Long, List<Long>> filmsId = new HashMap<>();
+        Map<Long, List<Long>> usersId = new HashMap<>();
+        for (Map.Entry<Long, Long> entry : filmStorage.getEntriesUserIdLikedFilmId()) {
+            filmsId.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(entry.getValue());
+            usersId.computeIfAbsent(entry.getValue(), k -> new ArrayList<>()).add(entry.getKey());
+        }
+        filmsIdByUserId = toBitmaps(filmsId);
+        usersIdByFilmId = toBitmaps(usersId);
+    }
+
+    private static ConcurrentMap<Long, IdBitmap> toBitmaps(Map<Long, List<Long>> ids) {
+        ConcurrentMap<Long, IdBitmap> bitmaps = new ConcurrentHashMap<>();
+        ids.forEach((key, values) -> bitmaps.put(key, IdBitmap.of(values)));
+        return bitmaps;
+    }
+
+    private static void add(ConcurrentMap<Long, IdBitmap> bitmaps, Long key, long id) {
+        bitmaps.merge(key, IdBitmap.EMPTY.with(id), (oldIds, newIds) -> oldIds.with(id));
+    }
+
+    private static void remove(ConcurrentMap<Long, IdBitmap> bitmaps, Long key, long id) {
+        bitmaps.computeIfPresent(key, (k, oldIds) -> {
+            IdBitmap newIds = oldIds.without(id);
+            return newIds.isEmpty() ? null : newIds;
+        });
+    }
+
+    private static Set<Long> getMismatchedKeys(Map<Long, IdBitmap> indexed, Map<Long, IdBitmap> stored) {
+        Set<Long> keys = new HashSet<>(indexed.keySet());
+        keys.addAll(stored.keySet());
+        Set<Long> mismatchedKeys = new HashSet<>();
+        for (Long key : keys) {
+            if (!Objects.equals(indexed.get(key), stored.get(key))) {
+                mismatchedKeys.add(key);
+            }
+        }
+        return mismatchedKeys;
+    }
+
+    private static long getEstimatedMemoryBytes(Map<Long, IdBitmap> bitmaps) {
+        long bytes = 0;
+        for (IdBitmap ids : bitmaps.values()) {
+            bytes += ESTIMATED_BYTES_PER_ENTRY + ids.getEstimatedBytes();
+        }
+        return bytes;
+    }
+}
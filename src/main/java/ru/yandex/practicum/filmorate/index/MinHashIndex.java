@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.config.RecommendationProperties;
+import ru.yandex.practicum.filmorate.config.RecommendationProperties.NeighborSearch;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * MinHash-подписи множеств понравившихся фильмов и LSH-корзины
+ * по полосам подписи. Пользователи, попавшие с запросившим хотя бы
+ * в одну корзину, считаются кандидатами в соседи: вероятность этого
+ * быстро растёт с коэффициентом Жаккара, поэтому точное сходство
+ * считается только для короткого списка. Индекс строится только
+ * в режиме поиска соседей minhash.
+ */
+@Component
+@Slf4j
+public class MinHashIndex {
+
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final LikeIndex likeIndex;
+    private final boolean enabled;
+    private final int bands;
+    private final int rows;
+    private final long[] hashSeeds;
+    private final ConcurrentMap<Long, long[]> bandKeysByUserId = new ConcurrentHashMap<>();
+    private final List<ConcurrentMap<Long, Set<Long>>> bucketsByBand = new ArrayList<>();
+
+    public MinHashIndex(LikeIndex likeIndex, RecommendationProperties recommendationProperties) {
+        this.likeIndex = likeIndex;
+        this.enabled = recommendationProperties.getNeighborSearch() == NeighborSearch.MINHASH;
+        this.bands = recommendationProperties.getMinhashBands();
+        this.rows = recommendationProperties.getMinhashRows();
+        this.hashSeeds = new Random(SEED).longs(bands * rows).toArray();
+        for (int band = 0; band < bands; band++) {
+            bucketsByBand.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        for (Long userId : likeIndex.getLikedFilmsByUserId().keySet()) {
+            updateUser(userId);
+        }
+        log.info("MinHash index is loaded with signatures of {} users", bandKeysByUserId.size());
+    }
+
+    /**
+     * Метод пересчитывает подписи по текущему индексу лайков,
+     * поэтому вызывается после его перезагрузки.
+     */
+    public synchronized void reload() {
+        bandKeysByUserId.clear();
+        bucketsByBand.forEach(Map::clear);
+        load();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Метод пересчитывает подпись пользователя по текущим
+     * лайкам и переносит его в корзины новой подписи.
+     *
+     * @param userId идентификатор пользователя.
+     */
+    public synchronized void updateUser(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        unbucket(userId, bandKeysByUserId.remove(userId));
+        IdBitmap likedFilms = likeIndex.getLikedFilms(userId);
+        if (likedFilms.isEmpty()) {
+            return;
+        }
+        long[] bandKeys = getBandKeys(likedFilms);
+        bandKeysByUserId.put(userId, bandKeys);
+        for (int band = 0; band < bands; band++) {
+            bucketsByBand.get(band).computeIfAbsent(bandKeys[band], k -> ConcurrentHashMap.newKeySet()).add(userId);
+        }
+    }
+
+    public synchronized void removeUser(Long userId) {
+        if (enabled) {
+            unbucket(userId, bandKeysByUserId.remove(userId));
+        }
+    }
+
+    /**
+     * Метод возвращает пользователей, совпавших с данным
+     * хотя бы в одной полосе подписи.
+     *
+     * @param userId идентификатор пользователя.
+     * @return Идентификаторы кандидатов в соседи.
+     */
+    public Set<Long> getCandidatesId(Long userId) {
+        Set<Long> candidatesId = new HashSet<>();
+        long[] bandKeys = bandKeysByUserId.get(userId);
+        if (bandKeys == null) {
+            IdBitmap likedFilms = likeIndex.getLikedFilms(userId);
+            if (likedFilms.isEmpty()) {
+                return candidatesId;
+            }
+            bandKeys = getBandKeys(likedFilms);
+        }
+        for (int band = 0; band < bands; band++) {
+            candidatesId.addAll(bucketsByBand.get(band).getOrDefault(bandKeys[band], Collections.emptySet()));
+        }
+        candidatesId.remove(userId);
+        return candidatesId;
+    }
+
+    private void unbucket(Long userId, long[] bandKeys) {
+        if (bandKeys == null) {
+            return;
+        }
+        for (int band = 0; band < bands; band++) {
+            Map<Long, Set<Long>> buckets = bucketsByBand.get(band);
+            Set<Long> bucket = buckets.get(bandKeys[band]);
+            if (bucket != null) {
+                bucket.remove(userId);
+                if (bucket.isEmpty()) {
+                    buckets.remove(bandKeys[band], bucket);
+                }
+            }
+        }
+    }
+
+    /**
+     * Подпись - минимумы независимых хеш-функций по всем
+     * понравившимся фильмам; ключ полосы - хеш её строк.
+     */
+    private long[] getBandKeys(IdBitmap likedFilms) {
+        long[] signature = new long[hashSeeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        likedFilms.forEach(filmId -> {
+            for (int i = 0; i < hashSeeds.length; i++) {
+                signature[i] = Math.min(signature[i], mix(filmId ^ hashSeeds[i]));
+            }
+        });
+
+        long[] bandKeys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = band;
+            for (int row = 0; row < rows; row++) {
+                key = mix(key * 31 + signature[band * rows + row]);
+            }
+            bandKeys[band] = key;
+        }
+        return bandKeys;
+    }
+
+    /**
+     * Финальное перемешивание SplitMix64.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,280 @@
+package ru.yandex.practicum.filmorate.index;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Рейтинги фильмов по количеству лайков, которые хранятся в памяти:
+ * общий, по жанру, по году выхода и по паре жанр-год. Загружаются
+ * из хранилища при старте и обновляются при изменении лайков,
+ * жанров или даты выхода фильма, поэтому топ популярных фильмов
+ * выбирается без обращения к БД.
+ */
+@Component
+@Slf4j
+public class PopularityLeaderboard {
+
+    /**
+     * Оценка памяти на один фильм: узел ConcurrentHashMap с упакованным
+     * ключом и объект состояния фильма со списком жанров.
+     */
+    private static final long ESTIMATED_BYTES_PER_FILM = 120;
+
+    /**
+     * Оценка памяти на одну запись рейтинга: узел и индекс skip-list
+     * и объект записи.
+     */
+    private static final long ESTIMATED_BYTES_PER_RANK_ENTRY = 80;
+
+    private final FilmStorage filmStorage;
+    private final ConcurrentMap<Long, FilmRank> films = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<RankEntry> ranking = new ConcurrentSkipListSet<>();
+    private final ConcurrentMap<Long, ConcurrentSkipListSet<RankEntry>> rankingsByGenre = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, ConcurrentSkipListSet<RankEntry>> rankingsByYear = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, ConcurrentSkipListSet<RankEntry>> rankingsByGenreAndYear =
+            new ConcurrentHashMap<>();
+    private final AtomicLong rankEntries = new AtomicLong();
+
+    public PopularityLeaderboard(FilmStorage filmStorage, MeterRegistry meterRegistry) {
+        this.filmStorage = filmStorage;
+        Gauge.builder("filmorate.leaderboard.size", films, Map::size)
+                .description("Films tracked by the popularity leaderboard")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.leaderboard.memory", this, PopularityLeaderboard::getEstimatedMemoryBytes)
+                .description("Estimated heap footprint of the popularity leaderboard")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        List<Film> storedFilms = filmStorage.getFilms();
+        for (Film film : storedFilms) {
+            putFilm(film, film.getRate());
+        }
+        log.info("Popularity leaderboard is loaded with {} films", storedFilms.size());
+    }
+
+    /**
+     * Метод приводит рейтинги к счётчикам лайков из хранилища:
+     * расходящиеся фильмы перезаписываются по одному, а отсутствующие
+     * в хранилище удаляются, поэтому топ остаётся доступным
+     * во время перезагрузки.
+     *
+     * @return Количество фильмов, положение которых в рейтингах изменилось.
+     */
+    public int reload() {
+        List<Film> storedFilms = filmStorage.getFilms();
+        Set<Long> storedFilmsId = new HashSet<>();
+        int changed = 0;
+        for (Film film : storedFilms) {
+            storedFilmsId.add(film.getId());
+            FilmRank oldRank = films.get(film.getId());
+            if (oldRank == null || oldRank.likes != film.getRate() || oldRank.year != getYear(film)
+                    || !oldRank.genresId.equals(getGenresId(film))) {
+                putFilm(film, film.getRate());
+                changed++;
+            }
+        }
+        for (Long filmId : new ArrayList<>(films.keySet())) {
+            if (!storedFilmsId.contains(filmId)) {
+                removeFilm(filmId);
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    public void addFilm(Film film) {
+        putFilm(film, 0L);
+    }
+
+    public void updateFilm(Film film) {
+        films.compute(film.getId(), (id, oldRank) -> {
+            long likes = 0;
+            if (oldRank != null) {
+                likes = oldRank.likes;
+                unrank(oldRank);
+            }
+            FilmRank newRank = new FilmRank(id, likes, getYear(film), getGenresId(film));
+            rank(newRank);
+            return newRank;
+        });
+    }
+
+    public void removeFilm(Long filmId) {
+        films.computeIfPresent(filmId, (id, oldRank) -> {
+            unrank(oldRank);
+            return null;
+        });
+    }
+
+    public void addLike(Long filmId) {
+        changeLikes(filmId, 1);
+    }
+
+    public void removeLike(Long filmId) {
+        changeLikes(filmId, -1);
+    }
+
+    /**
+     * Метод добавляет лайки, сгруппированные по фильмам,
+     * переставляя каждый фильм в рейтингах один раз.
+     *
+     * @param likesByFilmId количество новых лайков каждого фильма.
+     */
+    public void addLikes(Map<Long, Integer> likesByFilmId) {
+        likesByFilmId.forEach((filmId, likes) -> changeLikes(filmId, likes));
+    }
+
+    /**
+     * Метод возвращает идентификаторы самых популярных фильмов
+     * в порядке убывания количества лайков, при необходимости
+     * отобранных по жанру и/или году.
+     *
+     * @param count   размер списка.
+     * @param genreId идентификатор жанра или null.
+     * @param year    год выхода или null.
+     * @return Идентификаторы популярных фильмов.
+     */
+    public List<Long> getTopFilmsId(int count, Long genreId, Integer year) {
+        ConcurrentSkipListSet<RankEntry> selectedRanking;
+        if (genreId != null && year != null) {
+            selectedRanking = rankingsByGenreAndYear.get(getGenreAndYearKey(genreId, year));
+        } else if (genreId != null) {
+            selectedRanking = rankingsByGenre.get(genreId);
+        } else if (year != null) {
+            selectedRanking = rankingsByYear.get(year);
+        } else {
+            selectedRanking = ranking;
+        }
+        if (selectedRanking == null) {
+            return new ArrayList<>();
+        }
+
+        Set<Long> topFilmsId = new LinkedHashSet<>();
+        Iterator<RankEntry> iterator = selectedRanking.iterator();
+        while (topFilmsId.size() < count && iterator.hasNext()) {
+            topFilmsId.add(iterator.next().filmId);
+        }
+        return new ArrayList<>(topFilmsId);
+    }
+
+    public long getEstimatedMemoryBytes() {
+        return films.size() * ESTIMATED_BYTES_PER_FILM + rankEntries.get() * ESTIMATED_BYTES_PER_RANK_ENTRY;
+    }
+
+    private void putFilm(Film film, long likes) {
+        films.compute(film.getId(), (id, oldRank) -> {
+            if (oldRank != null) {
+                unrank(oldRank);
+            }
+            FilmRank newRank = new FilmRank(id, likes, getYear(film), getGenresId(film));
+            rank(newRank);
+            return newRank;
+        });
+    }
+
+    private void changeLikes(Long filmId, long delta) {
+        films.computeIfPresent(filmId, (id, oldRank) -> {
+            unrank(oldRank);
+            FilmRank newRank = new FilmRank(id, Math.max(0, oldRank.likes + delta), oldRank.year, oldRank.genresId);
+            rank(newRank);
+            return newRank;
+        });
+    }
+
+    private void rank(FilmRank filmRank) {
+        RankEntry entry = new RankEntry(filmRank.filmId, filmRank.likes);
+        addEntry(ranking, entry);
+        addEntry(rankingsByYear.computeIfAbsent(filmRank.year, k -> new ConcurrentSkipListSet<>()), entry);
+        for (Long genreId : filmRank.genresId) {
+            addEntry(rankingsByGenre.computeIfAbsent(genreId, k -> new ConcurrentSkipListSet<>()), entry);
+            addEntry(rankingsByGenreAndYear.computeIfAbsent(getGenreAndYearKey(genreId, filmRank.year),
+                    k -> new ConcurrentSkipListSet<>()), entry);
+        }
+    }
+
+    private void unrank(FilmRank filmRank) {
+        RankEntry entry = new RankEntry(filmRank.filmId, filmRank.likes);
+        removeEntry(ranking, entry);
+        removeEntry(rankingsByYear.get(filmRank.year), entry);
+        for (Long genreId : filmRank.genresId) {
+            removeEntry(rankingsByGenre.get(genreId), entry);
+            removeEntry(rankingsByGenreAndYear.get(getGenreAndYearKey(genreId, filmRank.year)), entry);
+        }
+    }
+
+    private void addEntry(ConcurrentSkipListSet<RankEntry> selectedRanking, RankEntry entry) {
+        if (selectedRanking.add(entry)) {
+            rankEntries.incrementAndGet();
+        }
+    }
+
+    private void removeEntry(ConcurrentSkipListSet<RankEntry> selectedRanking, RankEntry entry) {
+        if (selectedRanking != null && selectedRanking.remove(entry)) {
+            rankEntries.decrementAndGet();
+        }
+    }
+
+    /**
+     * Ключ рейтинга по паре жанр-год: год выхода занимает
+     * четыре младших десятичных разряда.
+     */
+    private static long getGenreAndYearKey(long genreId, int year) {
+        return genreId * 10_000 + year;
+    }
+
+    private static int getYear(Film film) {
+        return film.getReleaseDate().toLocalDate().getYear();
+    }
+
+    private static List<Long> getGenresId(Film film) {
+        return film.getGenres().stream()
+                .map(Genre::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static final class FilmRank {
+        private final long filmId;
+        private final long likes;
+        private final int year;
+        private final List<Long> genresId;
+
+        private FilmRank(long filmId, long likes, int year, List<Long> genresId) {
+            this.filmId = filmId;
+            this.likes = likes;
+            this.year = year;
+            this.genresId = genresId;
+        }
+    }
+
+    private static final class RankEntry implements Comparable<RankEntry> {
+        private final long filmId;
+        private final long likes;
+
+        private RankEntry(long filmId, long likes) {
+            this.filmId = filmId;
+            this.likes = likes;
+        }
+
+        @Override
+        public int compareTo(RankEntry other) {
+            int byLikes = Long.compare(other.likes, likes);
+            return byLikes != 0 ? byLikes : Long.compare(filmId, other.filmId);
+        }
+    }
+}
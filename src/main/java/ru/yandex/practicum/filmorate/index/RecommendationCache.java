@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.index;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.config.RecommendationProperties;
+import ru.yandex.practicum.filmorate.index.RecommendationEngine.Recommendations;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Кэш рекомендаций по пользователям, ограниченный по размеру
+ * (вытесняется давно не запрошенный пользователь) и по времени
+ * жизни записи. Запись сбрасывается при изменении лайков самого
+ * пользователя или любого из соседей, по которым она рассчитана.
+ */
+@Component
+public class RecommendationCache {
+
+    private final int maxSize;
+    private final long ttlMs;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Set<Long>> cachedUsersIdByNeighborId = new HashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private long invalidations;
+
+    public RecommendationCache(RecommendationProperties recommendationProperties, MeterRegistry meterRegistry) {
+        this.maxSize = recommendationProperties.getCacheSize();
+        this.ttlMs = recommendationProperties.getCacheTtlMs();
+        this.hits = Counter.builder("filmorate.recommendations.cache.requests")
+                .tag("result", "hit")
+                .description("Recommendation requests served from the cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("filmorate.recommendations.cache.requests")
+                .tag("result", "miss")
+                .description("Recommendation requests that had to be computed")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("filmorate.recommendations.cache.evictions")
+                .description("Recommendations evicted by size or expired by TTL")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.recommendations.cache.size", this, RecommendationCache::size)
+                .description("Users with cached recommendations")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Метод возвращает рекомендации из кэша или рассчитывает
+     * и кэширует их. Расчёт выполняется без блокировки кэша;
+     * результат не кэшируется, если во время расчёта кэш
+     * сбрасывался.
+     *
+     * @param userId идентификатор пользователя.
+     * @param loader расчёт рекомендаций.
+     * @return Идентификаторы рекомендованных фильмов.
+     */
+    public List<Long> getFilmsId(Long userId, Function<Long, Recommendations> loader) {
+        long invalidationsBefore;
+        synchronized (this) {
+            Entry entry = entries.get(userId);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits.increment();
+                return entry.filmsId;
+            }
+            if (entry != null) {
+                remove(userId);
+                evictions.increment();
+            }
+            invalidationsBefore = invalidations;
+        }
+        misses.increment();
+
+        Recommendations recommendations = loader.apply(userId);
+        List<Long> filmsId = Collections.unmodifiableList(recommendations.getFilmsId());
+        synchronized (this) {
+            if (invalidations == invalidationsBefore) {
+                put(userId, new Entry(filmsId, recommendations.getNeighborsId(),
+                        System.currentTimeMillis() + ttlMs));
+            }
+        }
+        return filmsId;
+    }
+
+    /**
+     * Метод сбрасывает рекомендации пользователя и всех
+     * пользователей, у которых он в числе соседей.
+     *
+     * @param userId идентификатор пользователя.
+     */
+    public synchronized void invalidate(Long userId) {
+        invalidations++;
+        remove(userId);
+        Set<Long> dependentUsersId = cachedUsersIdByNeighborId.remove(userId);
+        if (dependentUsersId != null) {
+            for (Long dependentUserId : dependentUsersId) {
+                remove(dependentUserId);
+            }
+        }
+    }
+
+    /**
+     * Метод сбрасывает рекомендации всех пользователей.
+     */
+    public synchronized void reload() {
+        invalidations++;
+        entries.clear();
+        cachedUsersIdByNeighborId.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void put(Long userId, Entry entry) {
+        remove(userId);
+        entries.put(userId, entry);
+        for (Long neighborId : entry.neighborsId) {
+            cachedUsersIdByNeighborId.computeIfAbsent(neighborId, k -> new HashSet<>()).add(userId);
+        }
+        Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxSize) {
+            Map.Entry<Long, Entry> evicted = eldest.next();
+            eldest.remove();
+            unlinkNeighbors(evicted.getKey(), evicted.getValue());
+            evictions.increment();
+        }
+    }
+
+    private void remove(Long userId) {
+        Entry entry = entries.remove(userId);
+        if (entry != null) {
+            unlinkNeighbors(userId, entry);
+        }
+    }
+
+    private void unlinkNeighbors(Long userId, Entry entry) {
+        for (Long neighborId : entry.neighborsId) {
+            Set<Long> usersId = cachedUsersIdByNeighborId.get(neighborId);
+            if (usersId != null) {
+                usersId.remove(userId);
+                if (usersId.isEmpty()) {
+                    cachedUsersIdByNeighborId.remove(neighborId);
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final List<Long> filmsId;
+        private final Set<Long> neighborsId;
+        private final long expiresAt;
+
+        private Entry(List<Long> filmsId, Set<Long> neighborsId, long expiresAt) {
+            this.filmsId = filmsId;
+            this.neighborsId = neighborsId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.config.RecommendationProperties;
+import ru.yandex.practicum.filmorate.model.Neighbor;
+import ru.yandex.practicum.filmorate.storage.neighbor.NeighborStorage;
+
+import java.util.*;
+import java.util.stream.LongStream;
+
+/**
+ * Рекомендации фильмов на основе индекса лайков. Для пользователя
+ * берутся K ближайших соседей по коэффициенту Жаккара, заранее
+ * рассчитанные фоновой задачей, а фильмы соседей ранжируются
+ * по сумме сходства лайкнувших их соседей.
+ */
+@Component
+public class RecommendationEngine {
+
+    private static final Comparator<Neighbor> BY_SIMILARITY = Comparator
+            .comparingDouble(Neighbor::getSimilarity)
+            .thenComparing(Neighbor::getUserId, Comparator.reverseOrder());
+
+    private final LikeIndex likeIndex;
+    private final MinHashIndex minHashIndex;
+    private final NeighborStorage neighborStorage;
+    private final RecommendationProperties recommendationProperties;
+
+    public RecommendationEngine(LikeIndex likeIndex, MinHashIndex minHashIndex, NeighborStorage neighborStorage,
+                                RecommendationProperties recommendationProperties) {
+        this.likeIndex = likeIndex;
+        this.minHashIndex = minHashIndex;
+        this.neighborStorage = neighborStorage;
+        this.recommendationProperties = recommendationProperties;
+    }
+
+    /**
+     * Метод возвращает фильмы, понравившиеся ближайшим соседям
+     * пользователя, которые он ещё не лайкал. Если соседи ещё не
+     * рассчитаны или лайки пользователя изменились после расчёта,
+     * соседи вычисляются на месте.
+     *
+     * @param userId идентификатор пользователя.
+     * @return Рекомендованные фильмы и соседи, по которым они выбраны.
+     */
+    public Recommendations getRecommendations(Long userId) {
+        IdBitmap likedFilms = likeIndex.getLikedFilms(userId);
+        if (likedFilms.isEmpty()) {
+            return new Recommendations(new ArrayList<>(), new HashSet<>());
+        }
+
+        List<Neighbor> neighbors = likeIndex.isChanged(userId) ? null : neighborStorage.getNeighbors(userId);
+        if (neighbors == null || neighbors.isEmpty()) {
+            neighbors = findNeighbors(userId);
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        Set<Long> neighborsId = new HashSet<>();
+        for (Neighbor neighbor : neighbors) {
+            neighborsId.add(neighbor.getUserId());
+            likeIndex.getLikedFilms(neighbor.getUserId()).andNot(likedFilms)
+                    .forEach(filmId -> scores.merge(filmId, neighbor.getSimilarity(), Double::sum));
+        }
+        List<Long> filmsId = new ArrayList<>(scores.keySet());
+        filmsId.sort(Comparator.<Long>comparingDouble(scores::get).reversed()
+                .thenComparing(filmId -> likeIndex.getLikers(filmId).cardinality(), Comparator.reverseOrder())
+                .thenComparing(Comparator.naturalOrder()));
+        return new Recommendations(filmsId, neighborsId);
+    }
+
+    /**
+     * Метод находит K пользователей с наибольшим коэффициентом
+     * Жаккара между множествами понравившихся фильмов. Кандидатами
+     * считаются пользователи, лайкнувшие хотя бы один из фильмов
+     * пользователя, а в режиме minhash - только пользователи
+     * из его LSH-корзин.
+     *
+     * @param userId идентификатор пользователя.
+     * @return Соседи по убыванию сходства.
+     */
+    public List<Neighbor> findNeighbors(Long userId) {
+        IdBitmap likedFilms = likeIndex.getLikedFilms(userId);
+        Map<Long, Integer> intersections = minHashIndex.isEnabled()
+                ? getCandidateIntersections(userId, likedFilms)
+                : getIntersections(userId, likedFilms);
+
+        int count = recommendationProperties.getNeighbors();
+        PriorityQueue<Neighbor> topNeighbors = new PriorityQueue<>(BY_SIMILARITY);
+        intersections.forEach((neighborId, intersection) -> {
+            int union = likedFilms.cardinality() + likeIndex.getLikedFilms(neighborId).cardinality() - intersection;
+            topNeighbors.add(new Neighbor(neighborId, (double) intersection / union));
+            if (topNeighbors.size() > count) {
+                topNeighbors.poll();
+            }
+        });
+        List<Neighbor> neighbors = new ArrayList<>(topNeighbors);
+        neighbors.sort(BY_SIMILARITY.reversed());
+        return neighbors;
+    }
+
+    /**
+     * Кандидаты собираются в примитивный массив без повторов,
+     * а пересечение с каждым считается побитовым И множеств
+     * понравившихся фильмов, как и в режиме minhash.
+     */
+    private Map<Long, Integer> getIntersections(Long userId, IdBitmap likedFilms) {
+        LongStream.Builder likers = LongStream.builder();
+        likedFilms.forEach(filmId -> likeIndex.getLikers(filmId).forEach(likers));
+        long[] likersId = likers.build().sorted().toArray();
+
+        Map<Long, Integer> intersections = new HashMap<>();
+        for (int i = 0; i < likersId.length; i++) {
+            long likerId = likersId[i];
+            if ((i > 0 && likersId[i - 1] == likerId) || likerId == userId) {
+                continue;
+            }
+            intersections.put(likerId, likedFilms.andCardinality(likeIndex.getLikedFilms(likerId)));
+        }
+        return intersections;
+    }
+
+    private Map<Long, Integer> getCandidateIntersections(Long userId, IdBitmap likedFilms) {
+        Map<Long, Integer> intersections = new HashMap<>();
+        for (Long candidateId : minHashIndex.getCandidatesId(userId)) {
+            int intersection = likedFilms.andCardinality(likeIndex.getLikedFilms(candidateId));
+            if (intersection > 0) {
+                intersections.put(candidateId, intersection);
+            }
+        }
+        return intersections;
+    }
+
+    public static final class Recommendations {
+        private final List<Long> filmsId;
+        private final Set<Long> neighborsId;
+
+        public Recommendations(List<Long> filmsId, Set<Long> neighborsId) {
+            this.filmsId = filmsId;
+            this.neighborsId = neighborsId;
+        }
+
+        public List<Long> getFilmsId() {
+            return filmsId;
+        }
+
+        public Set<Long> getNeighborsId() {
+            return neighborsId;
+        }
+    }
+}
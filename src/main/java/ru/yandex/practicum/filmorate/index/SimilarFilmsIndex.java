@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.config.RecommendationProperties;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Похожие фильмы по совместным лайкам: для каждого фильма хранятся
+ * N фильмов с наибольшим косинусным сходством множеств лайкнувших
+ * пользователей, то есть числом совместных лайков, нормированным
+ * на популярность обоих фильмов. Списки пересчитываются фоновой
+ * задачей, а списки фильмов, затронутых изменением лайков, -
+ * при первом запросе.
+ */
+@Component
+@Slf4j
+public class SimilarFilmsIndex {
+
+    private final LikeIndex likeIndex;
+    private final RecommendationProperties recommendationProperties;
+    private final ConcurrentMap<Long, long[]> similarFilmsIdByFilmId = new ConcurrentHashMap<>();
+    private final Set<Long> changedFilmsId = ConcurrentHashMap.newKeySet();
+
+    public SimilarFilmsIndex(LikeIndex likeIndex, RecommendationProperties recommendationProperties) {
+        this.likeIndex = likeIndex;
+        this.recommendationProperties = recommendationProperties;
+    }
+
+    /**
+     * Метод отмечает для пересчёта фильм и все фильмы,
+     * понравившиеся пользователю, так как число их совместных
+     * лайков с этим фильмом изменилось.
+     *
+     * @param userId идентификатор пользователя.
+     * @param filmId идентификатор фильма.
+     */
+    public void onLikeChanged(Long userId, Long filmId) {
+        changedFilmsId.add(filmId);
+        likeIndex.getLikedFilms(userId).forEach(changedFilmsId::add);
+    }
+
+    /**
+     * Метод отмечает для пересчёта фильмы пачки лайков и все
+     * фильмы, понравившиеся их авторам. Фильмы каждого
+     * пользователя перебираются один раз на пачку.
+     *
+     * @param usersId идентификаторы пользователей, поставивших лайки.
+     * @param filmsId идентификаторы фильмов, получивших лайки.
+     */
+    public void onLikesChanged(Collection<Long> usersId, Collection<Long> filmsId) {
+        changedFilmsId.addAll(filmsId);
+        for (Long userId : usersId) {
+            likeIndex.getLikedFilms(userId).forEach(changedFilmsId::add);
+        }
+    }
+
+    public void removeFilm(Long filmId) {
+        similarFilmsIdByFilmId.remove(filmId);
+        changedFilmsId.remove(filmId);
+    }
+
+    /**
+     * Метод сбрасывает все списки, они будут пересчитаны
+     * при запросе или фоновой задачей.
+     */
+    public void reload() {
+        similarFilmsIdByFilmId.clear();
+        changedFilmsId.clear();
+    }
+
+    public void putSimilarFilms(Long filmId, long[] similarFilmsId) {
+        similarFilmsIdByFilmId.put(filmId, similarFilmsId);
+    }
+
+    /**
+     * Метод возвращает фильмы, похожие на данный, по убыванию
+     * сходства. Удалённые и потерявшие все лайки фильмы пропускаются.
+     *
+     * @param filmId идентификатор фильма.
+     * @param count  размер списка.
+     * @return Идентификаторы похожих фильмов.
+     */
+    public List<Long> getSimilarFilmsId(Long filmId, int count) {
+        long[] similarFilmsId = similarFilmsIdByFilmId.get(filmId);
+        if (similarFilmsId == null || changedFilmsId.remove(filmId)) {
+            similarFilmsId = computeSimilarFilmsId(filmId);
+            similarFilmsIdByFilmId.put(filmId, similarFilmsId);
+        }
+
+        List<Long> filmsId = new ArrayList<>();
+        for (int i = 0; i < similarFilmsId.length && filmsId.size() < count; i++) {
+            if (!likeIndex.getLikers(similarFilmsId[i]).isEmpty()) {
+                filmsId.add(similarFilmsId[i]);
+            }
+        }
+        return filmsId;
+    }
+
+    /**
+     * Метод считает совместные лайки фильма со всеми фильмами его
+     * зрителей и выбирает N фильмов с наибольшим значением
+     * co(a, b) / sqrt(likes(a) * likes(b)).
+     *
+     * @param filmId идентификатор фильма.
+     * @return Идентификаторы похожих фильмов по убыванию сходства.
+     */
+    public long[] computeSimilarFilmsId(Long filmId) {
+        IdBitmap likers = likeIndex.getLikers(filmId);
+        Map<Long, Integer> coLikes = new HashMap<>();
+        likers.forEach(userId -> likeIndex.getLikedFilms(userId)
+                .forEach(otherFilmId -> coLikes.merge(otherFilmId, 1, Integer::sum)));
+        coLikes.remove(filmId);
+
+        Map<Long, Double> scores = new HashMap<>();
+        coLikes.forEach((otherFilmId, count) -> scores.put(otherFilmId,
+                count / Math.sqrt((double) likers.cardinality() * likeIndex.getLikers(otherFilmId).cardinality())));
+
+        int size = recommendationProperties.getSimilarFilms();
+        Comparator<Long> byScore = Comparator.<Long>comparingDouble(scores::get)
+                .thenComparing(Comparator.<Long>reverseOrder());
+        PriorityQueue<Long> topFilmsId = new PriorityQueue<>(byScore);
+        for (Long otherFilmId : scores.keySet()) {
+            topFilmsId.add(otherFilmId);
+            if (topFilmsId.size() > size) {
+                topFilmsId.poll();
+            }
+        }
+        long[] similarFilmsId = new long[topFilmsId.size()];
+        for (int i = similarFilmsId.length - 1; i >= 0; i--) {
+            similarFilmsId[i] = topFilmsId.poll();
+        }
+        return similarFilmsId;
+    }
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Итог пакетной загрузки лайков: исход каждого лайка
+ * в порядке запроса и количество лайков с каждым исходом.
+ */
+@Data
+public class BulkLikeResult {
+
+    private long added;
+    private long alreadyLiked;
+    private long unknownFilm;
+    private long unknownUser;
+    private long invalid;
+    private final List<Outcome> outcomes = new ArrayList<>();
+
+    public long getTotal() {
+        return added + alreadyLiked + unknownFilm + unknownUser + invalid;
+    }
+
+    public void addOutcome(Outcome outcome) {
+        outcomes.add(outcome);
+        switch (outcome) {
+            case ADDED:
+                added++;
+                break;
+            case ALREADY_LIKED:
+                alreadyLiked++;
+                break;
+            case UNKNOWN_FILM:
+                unknownFilm++;
+                break;
+            case UNKNOWN_USER:
+                unknownUser++;
+                break;
+            case INVALID:
+                invalid++;
+                break;
+        }
+    }
+
+    public enum Outcome {
+        ADDED,
+        ALREADY_LIKED,
+        UNKNOWN_FILM,
+        UNKNOWN_USER,
+        INVALID
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private final List<T> items;
+
+    /**
+     * Курсор следующей страницы или null,
+     * если страница последняя.
+     */
+    private final String nextCursor;
+
+    public static <T> CursorPage<T> of(List<T> items, int limit, Function<T, ?> cursorOf) {
+        String nextCursor = null;
+        if (!items.isEmpty() && items.size() == limit) {
+            nextCursor = String.valueOf(cursorOf.apply(items.get(items.size() - 1)));
+        }
+        return new CursorPage<>(items, nextCursor);
+    }
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class Neighbor {
+
+    private final Long userId;
+
+    /**
+     * Коэффициент Жаккара между множествами
+     * понравившихся фильмов.
+     */
+    private final double similarity;
+}
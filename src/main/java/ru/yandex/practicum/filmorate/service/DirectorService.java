@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
 
@@ -13,6 +14,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DirectorService {
     private final DirectorStorage directorStorage;
+    private final FilmSearchIndex filmSearchIndex;
 
     public List<Director> getDirectors() {
         log.info("A list of all directors is requested");
@@ -36,12 +38,15 @@ public class DirectorService {
     public Director updateDirector(Director director) {
         directorStorage.checkDirectorExistsById(director.getId());
         log.info("Director with id: {} is updated", director.getId());
-        return directorStorage.updateDirector(director);
+        Director updatedDirector = directorStorage.updateDirector(director);
+        filmSearchIndex.updateDirector(updatedDirector);
+        return updatedDirector;
     }
 
     public void removeDirectorById(Long id) {
         directorStorage.checkDirectorExistsById(id);
         log.info("Director with id: {} is deleted", id);
         directorStorage.removeDirectorById(id);
+        filmSearchIndex.removeDirector(id);
     }
 }
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.config.FeedProperties;
+import ru.yandex.practicum.filmorate.storage.feed.FeedStorage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически переносит старые события ленты в архив
+ * небольшими транзакциями, чтобы лента пользователя
+ * не росла бесконечно.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.feed.retention.enabled", havingValue = "true")
+public class FeedRetentionJob {
+
+    private final FeedStorage feedStorage;
+    private final FeedProperties feedProperties;
+
+    @Scheduled(initialDelayString = "${filmorate.feed.retention.interval-ms}",
+            fixedDelayString = "${filmorate.feed.retention.interval-ms}")
+    public void archiveOldEvents() {
+        FeedProperties.Retention retention = feedProperties.getRetention();
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retention.getMaxAgeDays());
+        int archived = 0;
+        int batch;
+        do {
+            batch = feedStorage.archiveEventsBefore(cutoff, retention.getBatchSize());
+            archived += batch;
+        } while (batch == retention.getBatchSize());
+        log.info("{} feed event(s) older than {} days are archived", archived, retention.getMaxAgeDays());
+    }
+}
@@ -0,0 +1,243 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.config.FeedProperties;
+import ru.yandex.practicum.filmorate.exception.TooManySubscribersException;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.feed.FeedStorage;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Рассылка новых событий ленты подписчикам по Server-Sent Events.
+ * Подписка не занимает поток: после записи событий рассылка
+ * для их пользователей ставится в общий пул потоков, который
+ * дочитывает из хранилища события после последнего отправленного
+ * каждому подписчику. Поэтому клиент, переподключившийся
+ * с заголовком Last-Event-ID, получает пропущенные события.
+ */
+@Service
+@Slf4j
+public class FeedStreamDispatcher {
+
+    private final FeedStorage feedStorage;
+    private final FeedProperties.Stream properties;
+    private final ExecutorService executor;
+    private final ConcurrentMap<Long, Set<Subscription>> subscriptionsByUserId = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Timer fanOutTimer;
+    private final Counter rejectedCounter;
+
+    public FeedStreamDispatcher(FeedStorage feedStorage, FeedProperties feedProperties,
+                                @Qualifier("feedStreamExecutor") ExecutorService feedStreamExecutor,
+                                MeterRegistry meterRegistry) {
+        this.feedStorage = feedStorage;
+        this.properties = feedProperties.getStream();
+        this.executor = feedStreamExecutor;
+        Gauge.builder("filmorate.feed.stream.subscribers", subscribers, AtomicInteger::get)
+                .description("Open feed stream subscriptions")
+                .register(meterRegistry);
+        this.fanOutTimer = Timer.builder("filmorate.feed.stream.fanout")
+                .description("Time from the creation of a feed event to its delivery to a subscriber")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("filmorate.feed.stream.rejected")
+                .description("Feed stream subscriptions rejected by the subscriber limits")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Метод подписывает клиента на новые события ленты пользователя.
+     *
+     * @param userId      идентификатор пользователя.
+     * @param lastEventId идентификатор последнего полученного клиентом
+     *                    события или null для подписки только
+     *                    на новые события.
+     * @return Поток событий.
+     */
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        if (subscribers.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscribers.decrementAndGet();
+            rejectedCounter.increment();
+            throw new TooManySubscribersException("The limit of feed stream subscribers is reached");
+        }
+
+        long startId = lastEventId != null ? lastEventId : getLatestEventId(userId);
+        Subscription subscription = new Subscription(userId, new SseEmitter(properties.getTimeoutMs()), startId);
+        AtomicBoolean added = new AtomicBoolean();
+        subscriptionsByUserId.compute(userId, (k, subscriptions) -> {
+            if (subscriptions == null) {
+                subscriptions = ConcurrentHashMap.newKeySet();
+            }
+            if (subscriptions.size() < properties.getMaxSubscribersPerUser()) {
+                added.set(subscriptions.add(subscription));
+            }
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+        if (!added.get()) {
+            subscribers.decrementAndGet();
+            rejectedCounter.increment();
+            throw new TooManySubscribersException(String.format(
+                    "The limit of feed stream subscribers of a user with id: %d is reached", userId));
+        }
+
+        SseEmitter emitter = subscription.getEmitter();
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onTimeout(() -> unsubscribe(subscription));
+        emitter.onError(e -> unsubscribe(subscription));
+        log.info("A feed stream of a user with id: {} is subscribed from event id: {}", userId, startId);
+        if (lastEventId != null) {
+            schedule(userId);
+        }
+        return emitter;
+    }
+
+    /**
+     * Метод рассылает записанные события подписчикам
+     * лент их пользователей.
+     *
+     * @param events записанные события.
+     */
+    public void onEventsSaved(Collection<Event> events) {
+        Set<Long> usersId = new HashSet<>();
+        for (Event event : events) {
+            if (subscriptionsByUserId.containsKey(event.getUserId())) {
+                usersId.add(event.getUserId());
+            }
+        }
+        usersId.forEach(this::schedule);
+    }
+
+    @PreDestroy
+    public void close() {
+        subscriptionsByUserId.values().forEach(subscriptions ->
+                subscriptions.forEach(subscription -> subscription.getEmitter().complete()));
+    }
+
+    private void schedule(Long userId) {
+        try {
+            executor.execute(() -> dispatch(userId));
+        } catch (RejectedExecutionException e) {
+            log.debug("Feed stream dispatch of a user with id: {} is skipped on shutdown", userId);
+        }
+    }
+
+    /**
+     * События читаются одним запросом начиная с самого отставшего
+     * подписчика, а каждому подписчику отправляются только те,
+     * которые он ещё не получил. Отправка подписчику сериализуется,
+     * поэтому параллельные рассылки не дублируют события.
+     */
+    private void dispatch(Long userId) {
+        Set<Subscription> subscriptions = subscriptionsByUserId.get(userId);
+        if (subscriptions == null || subscriptions.isEmpty()) {
+            return;
+        }
+        long afterId = Long.MAX_VALUE;
+        for (Subscription subscription : subscriptions) {
+            afterId = Math.min(afterId, subscription.getLastEventId());
+        }
+
+        List<Event> events;
+        do {
+            events = feedStorage.getFeedAfter(userId, afterId, properties.getBatchSize());
+            for (Subscription subscription : subscriptions) {
+                send(subscription, events);
+            }
+            if (!events.isEmpty()) {
+                afterId = events.get(events.size() - 1).getEventId();
+            }
+        } while (events.size() == properties.getBatchSize());
+    }
+
+    private void send(Subscription subscription, List<Event> events) {
+        synchronized (subscription) {
+            try {
+                for (Event event : events) {
+                    if (subscription.isClosed() || event.getEventId() <= subscription.getLastEventId()) {
+                        continue;
+                    }
+                    subscription.getEmitter().send(SseEmitter.event()
+                            .id(String.valueOf(event.getEventId()))
+                            .data(event, MediaType.APPLICATION_JSON));
+                    subscription.setLastEventId(event.getEventId());
+                    fanOutTimer.record(System.currentTimeMillis() - event.getTimestamp().getTime(),
+                            TimeUnit.MILLISECONDS);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("A feed stream of a user with id: {} is disconnected", subscription.getUserId());
+                unsubscribe(subscription);
+            }
+        }
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        if (!subscription.close()) {
+            return;
+        }
+        subscribers.decrementAndGet();
+        subscriptionsByUserId.computeIfPresent(subscription.getUserId(), (k, subscriptions) -> {
+            subscriptions.remove(subscription);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+        log.info("A feed stream of a user with id: {} is unsubscribed", subscription.getUserId());
+    }
+
+    private long getLatestEventId(Long userId) {
+        List<Event> events = feedStorage.getFeedPage(userId, Long.MAX_VALUE, 1);
+        return events.isEmpty() ? 0 : events.get(0).getEventId();
+    }
+
+    private static final class Subscription {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long lastEventId;
+
+        private Subscription(Long userId, SseEmitter emitter, long lastEventId) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.lastEventId = lastEventId;
+        }
+
+        Long getUserId() {
+            return userId;
+        }
+
+        SseEmitter getEmitter() {
+            return emitter;
+        }
+
+        long getLastEventId() {
+            return lastEventId;
+        }
+
+        void setLastEventId(long lastEventId) {
+            this.lastEventId = lastEventId;
+        }
+
+        boolean isClosed() {
+            return closed.get();
+        }
+
+        boolean close() {
+            return closed.compareAndSet(false, true);
+        }
+    }
+}
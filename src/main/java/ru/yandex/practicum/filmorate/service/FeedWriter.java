@@ -0,0 +1,199 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.config.FeedProperties;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.feed.FeedStorage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отложенная запись событий ленты. События складываются
+ * в ограниченный буфер и записываются фоновым потоком пачками
+ * при накоплении flush-size событий или по истечении интервала.
+ * Если буфер заполнен, поток запроса сам записывает буфер,
+ * поэтому события не теряются и сохраняют порядок. Перед чтением
+ * ленты и при остановке приложения буфер записывается целиком.
+ * При аварийном завершении процесса события, ещё не записанные
+ * из буфера, теряются: накопленные за последний flush-interval-ms
+ * или больше, если хранилище недоступно. Если это недопустимо,
+ * запись переключается в синхронный режим настройкой async-enabled.
+ */
+@Service
+@Slf4j
+public class FeedWriter {
+
+    private final FeedStorage feedStorage;
+    private final FeedStreamDispatcher feedStreamDispatcher;
+    private final TimelineFanOut timelineFanOut;
+    private final FeedProperties.Writer properties;
+    private final BlockingQueue<Event> buffer;
+    private final Object signal = new Object();
+    private final Timer flushTimer;
+    private final Counter backpressureCounter;
+    private final Counter failedCounter;
+    private volatile boolean running;
+    private Thread thread;
+
+    public FeedWriter(FeedStorage feedStorage, FeedStreamDispatcher feedStreamDispatcher,
+                      TimelineFanOut timelineFanOut, FeedProperties feedProperties, MeterRegistry meterRegistry) {
+        this.feedStorage = feedStorage;
+        this.feedStreamDispatcher = feedStreamDispatcher;
+        this.timelineFanOut = timelineFanOut;
+        this.properties = feedProperties.getWriter();
+        this.buffer = new ArrayBlockingQueue<>(properties.getCapacity());
+        Gauge.builder("filmorate.feed.writer.queue", buffer, BlockingQueue::size)
+                .description("Feed events waiting to be written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("filmorate.feed.writer.flush")
+                .description("Duration of a feed events batch write")
+                .register(meterRegistry);
+        this.backpressureCounter = Counter.builder("filmorate.feed.writer.backpressure")
+                .description("Feed events written by the request thread because the buffer was full")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("filmorate.feed.writer.failed")
+                .description("Feed events that could not be written")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isAsyncEnabled()) {
+            log.info("Feed events are written synchronously");
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "feed-writer");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Feed writer is started with capacity {} and flush size {}", properties.getCapacity(),
+                properties.getFlushSize());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        thread.join(properties.getShutdownTimeoutMs());
+        flush();
+        log.info("Feed writer is stopped");
+    }
+
+    /**
+     * Метод ставит событие в очередь на запись.
+     *
+     * @param event объект события.
+     */
+    public void write(Event event) {
+        writeAll(List.of(event));
+    }
+
+    /**
+     * Метод ставит события в очередь на запись. В синхронном
+     * режиме они записываются одной пакетной вставкой.
+     *
+     * @param events события в порядке их совершения.
+     */
+    public void writeAll(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (!running) {
+            synchronized (this) {
+                writeBatch(events);
+            }
+            return;
+        }
+        for (Event event : events) {
+            while (!buffer.offer(event)) {
+                backpressureCounter.increment();
+                flush();
+            }
+        }
+        if (buffer.size() >= properties.getFlushSize()) {
+            synchronized (signal) {
+                signal.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Метод записывает все события из буфера. Вызывается
+     * перед чтением ленты, чтобы пользователь видел
+     * собственные только что совершённые действия.
+     */
+    public synchronized void flush() {
+        List<Event> batch = new ArrayList<>(properties.getFlushSize());
+        while (buffer.drainTo(batch, properties.getFlushSize()) > 0) {
+            long start = System.nanoTime();
+            writeBatch(batch);
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batch.clear();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                synchronized (signal) {
+                    if (running && buffer.size() < properties.getFlushSize()) {
+                        signal.wait(properties.getFlushIntervalMs());
+                    }
+                }
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Feed writer failed to flush the buffer", e);
+            }
+        }
+    }
+
+    /**
+     * Пачка записывается одной пакетной вставкой. Если вставка
+     * не удалась, события записываются по одному, чтобы одно
+     * ошибочное событие не лишило ленту всей пачки. Записи
+     * сериализуются, поэтому события после запомненного
+     * идентификатора - это ровно записанная пачка.
+     */
+    private void writeBatch(List<Event> batch) {
+        long lastEventId = feedStorage.getLastEventId();
+        try {
+            feedStorage.saveUserEvents(batch);
+        } catch (DataAccessException e) {
+            log.warn("Batch write of {} feed events failed, writing them one by one", batch.size(), e);
+            for (Event event : batch) {
+                try {
+                    feedStorage.saveUserEvent(event);
+                } catch (DataAccessException ex) {
+                    failedCounter.increment();
+                    log.error("Feed event {} could not be written", event, ex);
+                }
+            }
+        }
+        try {
+            timelineFanOut.fanOut(lastEventId);
+        } catch (DataAccessException e) {
+            log.error("Feed events after id: {} could not be fanned out to timelines", lastEventId, e);
+        }
+        feedStreamDispatcher.onEventsSaved(batch);
+    }
+}
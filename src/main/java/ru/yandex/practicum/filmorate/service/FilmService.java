@@ -2,21 +2,28 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
-import ru.yandex.practicum.filmorate.exception.UnknownUserException;
-import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.config.PaginationProperties;
+import ru.yandex.practicum.filmorate.config.RecommendationProperties;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.LikeIndex;
+import ru.yandex.practicum.filmorate.index.MinHashIndex;
+import ru.yandex.practicum.filmorate.index.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.index.RecommendationCache;
+import ru.yandex.practicum.filmorate.index.RecommendationEngine;
+import ru.yandex.practicum.filmorate.index.SimilarFilmsIndex;
+import ru.yandex.practicum.filmorate.model.BulkLikeResult;
+import ru.yandex.practicum.filmorate.model.BulkLikeResult.Outcome;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
-import ru.yandex.practicum.filmorate.storage.feed.FeedStorage;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
-import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 import static ru.yandex.practicum.filmorate.validator.Validator.*;
 
@@ -25,11 +32,21 @@ import static ru.yandex.practicum.filmorate.validator.Validator.*;
 @RequiredArgsConstructor
 public class FilmService {
 
+    private static final int BULK_LIKES_BATCH_SIZE = 1000;
+
     private final FilmStorage filmStorage;
-    private final GenreStorage genreStorage;
     private final DirectorStorage directorStorage;
-    private final FeedStorage feedStorage;
+    private final FeedWriter feedWriter;
     private final UserStorage userStorage;
+    private final PopularityLeaderboard popularityLeaderboard;
+    private final FilmSearchIndex filmSearchIndex;
+    private final LikeIndex likeIndex;
+    private final MinHashIndex minHashIndex;
+    private final RecommendationEngine recommendationEngine;
+    private final RecommendationCache recommendationCache;
+    private final SimilarFilmsIndex similarFilmsIndex;
+    private final PaginationProperties paginationProperties;
+    private final RecommendationProperties recommendationProperties;
 
     public void addLikeFilm(Long id, Long userId) {
         userStorage.checkUserExistsById(userId);
@@ -37,7 +54,12 @@ public class FilmService {
         filmStorage.checkUserLikeToFilmNotExist(id, userId);
 
         filmStorage.addLikeFilm(id, userId);
-        feedStorage.saveUserEvent(new Event(userId, id, "LIKE", "ADD", new Date()));
+        popularityLeaderboard.addLike(id);
+        likeIndex.addLike(userId, id);
+        similarFilmsIndex.onLikeChanged(userId, id);
+        minHashIndex.updateUser(userId);
+        recommendationCache.invalidate(userId);
+        feedWriter.write(new Event(userId, id, "LIKE", "ADD", new Date()));
         log.debug("User with id: {} has liked the film with id: {}", userId, id);
     }
 
@@ -45,34 +67,61 @@ public class FilmService {
         filmStorage.checkFilmExistsById(id);
         userStorage.checkUserExistsById(userId);
 
-        try {
-            filmStorage.removeLikeFilm(id, userId);
-        } catch (DataAccessException e) {
-            throw new UnknownUserException(String.format("The user with id: %d has not liked the film with id: %d",
-                    userId, id));
+        if (!filmStorage.removeLikeFilm(id, userId)) {
+            log.debug("A user with id: {} has not liked the film with id: {}, nothing to remove", userId, id);
+            return;
         }
-        feedStorage.saveUserEvent(new Event(userId, id, "LIKE", "REMOVE", new Date()));
+        popularityLeaderboard.removeLike(id);
+        likeIndex.removeLike(userId, id);
+        similarFilmsIndex.onLikeChanged(userId, id);
+        minHashIndex.updateUser(userId);
+        recommendationCache.invalidate(userId);
+        feedWriter.write(new Event(userId, id, "LIKE", "REMOVE", new Date()));
         log.debug("A user with id: {} removed a film like with id: {}", userId, id);
     }
 
+    /**
+     * Метод добавляет лайки из потока пачками: существование
+     * фильмов и пользователей проверяется одним запросом на пачку,
+     * а лайки вставляются пакетно. Повторная отправка тех же лайков
+     * ничего не меняет, поэтому прерванную загрузку можно повторить.
+     * В памяти держится текущая пачка и по одному исходу на лайк.
+     *
+     * @param likes поток пар идентификаторов фильма и пользователя.
+     * @return Исход каждого лайка и количество лайков с каждым исходом.
+     */
+    public BulkLikeResult addLikesBulk(Iterator<FilmLike> likes) {
+        BulkLikeResult result = new BulkLikeResult();
+        List<FilmLike> batch = new ArrayList<>(BULK_LIKES_BATCH_SIZE);
+        while (likes.hasNext()) {
+            batch.add(likes.next());
+            if (batch.size() == BULK_LIKES_BATCH_SIZE) {
+                addLikesBatch(batch, result);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            addLikesBatch(batch, result);
+        }
+        log.info("{} likes are processed by a bulk import, {} of them are added", result.getTotal(),
+                result.getAdded());
+        return result;
+    }
+
     public List<Film> getListPopularFilm(Integer count, Integer genreId, Integer year) {
         validateGenreAndYear(genreId, year);
 
-        List<Film> films;
         if (genreId != null && year != null) {
             log.info("{} popular films by genre #{} and {} year is/are requested", count, genreId, year);
-            films = filmStorage.findPopularFilmSortedByGenreAndYear(count, genreId, year);
         } else if (genreId != null) {
             log.info("{} popular films by genre No.{} is/are requested", count, genreId);
-            films = filmStorage.getListPopularFilmSortedByGenre(count, genreId);
         } else if (year != null) {
             log.info("{} popular films by {} year is/are requested", count, year);
-            films = filmStorage.getListPopularFilmSortedByYear(count, year);
         } else {
             log.info("{} popular films is/are requested", count);
-            films = filmStorage.getListPopularFilm(count);
         }
-        return populateFilmsWithGenresAndDirectors(films);
+        Long genre = genreId == null ? null : genreId.longValue();
+        return filmStorage.getFilmsByIds(popularityLeaderboard.getTopFilmsId(count, genre, year));
     }
 
     public Film addFilm(Film film) {
@@ -81,79 +130,79 @@ public class FilmService {
         }
 
         Film addedFilm = filmStorage.addFilm(film);
+        popularityLeaderboard.addFilm(addedFilm);
+        filmSearchIndex.indexFilm(addedFilm);
         log.info("Film - {} is added to collection", film.getName());
-        return populateFilmWithGenresAndDirectors(addedFilm);
+        return addedFilm;
     }
 
     public Film updateFilm(Film film) {
         filmStorage.checkFilmExistsById(film.getId());
 
         Film updatedFilm = filmStorage.updateFilm(film);
+        popularityLeaderboard.updateFilm(updatedFilm);
+        filmSearchIndex.indexFilm(updatedFilm);
         log.info("The film - {} has been updated", updatedFilm.getName());
-        return populateFilmWithGenresAndDirectors(updatedFilm);
+        return updatedFilm;
     }
 
-    public List<Film> getFilms() {
-        List<Film> films = filmStorage.getFilmsWithoutGenresAndDirectors();
-        log.info("A list of all films is requested");
-        return populateFilmsWithGenresAndDirectors(films);
+    public CursorPage<Film> getFilms(Long after, Integer limit) {
+        if (after == null && limit == null && paginationProperties.isUnpaginatedListsEnabled()) {
+            log.info("A list of all films is requested");
+            return new CursorPage<>(filmStorage.getFilms(), null);
+        }
+        int pageLimit = limit == null ? paginationProperties.getDefaultLimit() : limit;
+        validatePageLimit(pageLimit, paginationProperties.getMaxLimit());
+        long afterId = after == null ? 0 : after;
+
+        log.info("A page of {} films after id: {} is requested", pageLimit, afterId);
+        return CursorPage.of(filmStorage.getFilmsPage(afterId, pageLimit), pageLimit, Film::getId);
     }
 
-    public Film getFilmById(Long id) {
-        filmStorage.checkFilmExistsById(id);
+    public void streamFilms(Consumer<Film> consumer) {
+        log.info("A stream of all films is requested");
+        filmStorage.streamFilms(consumer);
+    }
 
-        Film film = filmStorage.getFilmByIdWithoutGenresAndDirectors(id);
+    public Film getFilmById(Long id) {
         log.info("Film with id: {} is requested", id);
-        return populateFilmWithGenresAndDirectors(film);
+        return filmStorage.getFilmById(id);
     }
 
     public void removeFilmById(Long id) {
         filmStorage.checkFilmExistsById(id);
 
         filmStorage.removeFilmById(id);
+        popularityLeaderboard.removeFilm(id);
+        filmSearchIndex.removeFilm(id);
+        likeIndex.removeFilm(id);
+        similarFilmsIndex.removeFilm(id);
         log.info("Film with id: {} is removed from collection", id);
     }
 
+    public List<Film> getSimilarFilms(Long id, Integer count) {
+        filmStorage.checkFilmExistsById(id);
+        validateCount(count, recommendationProperties.getSimilarFilms());
+
+        log.info("{} films similar to the film with id: {} is/are requested", count, id);
+        return filmStorage.getFilmsByIds(similarFilmsIndex.getSimilarFilmsId(id, count));
+    }
+
     public List<Film> getFilmsByDirector(Long directorId, String sortBy) {
         directorStorage.checkDirectorExistsById(directorId);
         log.info("A list of films by director with id: {}, sorted by: {}", directorId, sortBy);
 
-        List<Film> films = filmStorage.getFilmsByDirectorWithoutGenresAndDirectors(directorId, sortBy);
-        Map<Long, List<Genre>> genresByFilmsId = genreStorage.getGenresByFilmsId();
-        Map<Long, List<Director>> directorsByFilmsId = directorStorage.getDirectorsByFilmsId();
-        for (Film film : films) {
-            if (genresByFilmsId.get(film.getId()) != null) {
-                film.getGenres().addAll(genresByFilmsId.get(film.getId()));
-            }
-            if (directorsByFilmsId.get(film.getId()) != null) {
-                film.getDirectors().addAll(directorsByFilmsId.get(film.getId()));
-            }
-        }
-        return films;
+        return filmStorage.getFilmsByDirector(directorId, sortBy);
     }
 
     public List<Film> searchFilmsByTitleOrDirector(String query, String searchBy) {
         log.info("Search query is received: {}. Search parameter: {}", query, searchBy);
         validateSearchParameter(searchBy);
 
-        List<Map.Entry<Long, String>> dataList = new ArrayList<>();
-        switch (searchBy) {
-            case "title":
-                dataList.addAll(filmStorage.searchFilmsWithoutGenresAndDirectorsByTitle(query));
-                break;
-            case "director":
-                dataList.addAll(filmStorage.searchFilmsWithoutGenresAndDirectorsByDirector(query));
-                break;
-            case "title,director":
-            case "director,title":
-                dataList.addAll(filmStorage.searchFilmsWithoutGenresAndDirectorsByTitle(query));
-                dataList.addAll(filmStorage.searchFilmsWithoutGenresAndDirectorsByDirector(query));
-                break;
-        }
-        List<Long> matchingIds = getMatchingIds(query, dataList);
-        List<Film> films = filmStorage.getFilmsSortedByPopularity(matchingIds);
-
-        return populateFilmsWithGenresAndDirectors(films);
+        boolean byTitle = searchBy.contains("title");
+        boolean byDirector = searchBy.contains("director");
+        List<Long> matchingIds = new ArrayList<>(filmSearchIndex.search(query, byTitle, byDirector));
+        return filmStorage.getFilmsSortedByPopularity(matchingIds);
     }
 
     public List<Film> getCommonFilms(Long userId, Long friendId) {
@@ -161,101 +210,92 @@ public class FilmService {
         userStorage.checkUserExistsById(userId);
         userStorage.checkUserExistsById(friendId);
 
-
-        List<Film> films = filmStorage.getCommonFilms(userId, friendId);
-        return populateFilmsWithGenresAndDirectors(films);
+        return filmStorage.getFilmsSortedByPopularity(likeIndex.getCommonFilmsId(userId, friendId));
     }
 
     public List<Film> getRecommendedFilms(Long id) {
         userStorage.checkUserExistsById(id);
 
-        List<Film> films = new ArrayList<>();
-
-        List<Map.Entry<Long, Long>> entriesUserIdLikedFilmId = filmStorage.getEntriesUserIdLikedFilmId();
-        if (entriesUserIdLikedFilmId.isEmpty()) {
-            return films;
-        }
-        Map<Long, ArrayList<Long>> usersIdWithLikedFilmsId = getUsersIdWithLikedFilmsId(entriesUserIdLikedFilmId);
-        Long mostIntersectionsUserId = getMostIntersectionsUserId(id, usersIdWithLikedFilmsId);
-        if (mostIntersectionsUserId == null) {
-            return films;
-        }
-        List<Long> filmsId = new ArrayList<>();
-        for (Long filmId : usersIdWithLikedFilmsId.get(mostIntersectionsUserId)) {
-            if (!usersIdWithLikedFilmsId.get(id).contains(filmId)) {
-                filmsId.add(filmId);
-            }
-        }
-        films.addAll(filmStorage.getFilmsSortedByPopularity(filmsId));
+        List<Long> filmsId = recommendationCache.getFilmsId(id, recommendationEngine::getRecommendations);
         log.info("A user with id: {} requested a list of recommended films", id);
-        return populateFilmsWithGenresAndDirectors(films);
+        return filmStorage.getFilmsByIds(filmsId);
     }
 
-    private Film populateFilmWithGenresAndDirectors(Film film) {
-        List<Genre> genres = genreStorage.getGenresByFilmId(film.getId());
-        film.getGenres().addAll(genres);
-        List<Director> directors = directorStorage.getDirectorsByFilmId(film.getId());
-        film.getDirectors().addAll(directors);
-        return film;
-    }
-
-    private List<Film> populateFilmsWithGenresAndDirectors(List<Film> films) {
-        Map<Long, List<Genre>> genresByFilmsId = genreStorage.getGenresByFilmsId();
-        Map<Long, List<Director>> directorsByFilmsId = directorStorage.getDirectorsByFilmsId();
-        for (Film film : films) {
-            if (genresByFilmsId.get(film.getId()) != null) {
-                film.getGenres().addAll(genresByFilmsId.get(film.getId()));
+    private void addLikesBatch(List<FilmLike> batch, BulkLikeResult result) {
+        Set<Long> filmsId = new HashSet<>();
+        Set<Long> usersId = new HashSet<>();
+        for (FilmLike like : batch) {
+            if (isValid(like)) {
+                filmsId.add(like.getFilmId());
+                usersId.add(like.getUserId());
             }
-            if (directorsByFilmsId.get(film.getId()) != null) {
-                film.getDirectors().addAll(directorsByFilmsId.get(film.getId()));
+        }
+        Set<Long> existingFilmsId = filmStorage.getExistingFilmsId(filmsId);
+        Set<Long> existingUsersId = userStorage.getExistingUsersId(usersId);
+
+        Outcome[] outcomes = new Outcome[batch.size()];
+        Map<FilmLike, Integer> newLikes = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            FilmLike like = batch.get(i);
+            if (!isValid(like)) {
+                outcomes[i] = Outcome.INVALID;
+            } else if (!existingFilmsId.contains(like.getFilmId())) {
+                outcomes[i] = Outcome.UNKNOWN_FILM;
+            } else if (!existingUsersId.contains(like.getUserId())) {
+                outcomes[i] = Outcome.UNKNOWN_USER;
+            } else if (newLikes.putIfAbsent(like, i) != null) {
+                outcomes[i] = Outcome.ALREADY_LIKED;
             }
         }
-        return films;
-    }
 
-    private List<Long> getMatchingIds(String query, List<Map.Entry<Long, String>> dataList) {
-        List<Long> matchingIds = new ArrayList<>();
-        for (Map.Entry<Long, String> entry : dataList) {
-            if (entry.getValue().toLowerCase().contains(query.toLowerCase())) {
-                matchingIds.add(entry.getKey());
+        if (!newLikes.isEmpty()) {
+            List<FilmLike> likes = new ArrayList<>(newLikes.keySet());
+            boolean[] added = filmStorage.addLikes(likes);
+            List<FilmLike> addedLikes = new ArrayList<>();
+            Iterator<Integer> positions = newLikes.values().iterator();
+            for (int i = 0; i < added.length; i++) {
+                outcomes[positions.next()] = added[i] ? Outcome.ADDED : Outcome.ALREADY_LIKED;
+                if (added[i]) {
+                    addedLikes.add(likes.get(i));
+                }
             }
+            onLikesAdded(addedLikes);
+        }
+        for (Outcome outcome : outcomes) {
+            result.addOutcome(outcome);
         }
-        return matchingIds.stream()
-                .distinct()
-                .collect(Collectors.toList());
     }
 
-    private Long getMostIntersectionsUserId(Long requestedUserId, Map<Long, ArrayList<Long>> usersIdWithLikedFilmsId) {
-        Map<Long, Long> frequency = new HashMap<>();
-
-        for (Map.Entry<Long, ArrayList<Long>> userIdWithLikedFilmsId : usersIdWithLikedFilmsId.entrySet()) {
-            if (!userIdWithLikedFilmsId.getKey().equals(requestedUserId)) {
-                Long intersectionsCount = usersIdWithLikedFilmsId.get(requestedUserId)
-                        .stream()
-                        .filter((userIdWithLikedFilmsId.getValue()::contains))
-                        .count();
-                frequency.put(userIdWithLikedFilmsId.getKey(), intersectionsCount);
-            }
+    /**
+     * Индексы обновляются один раз на пачку: рейтинг каждого
+     * фильма меняется на число его новых лайков, соседи
+     * и рекомендации пересчитываются по разу на пользователя,
+     * а события ленты записываются одной пачкой.
+     */
+    private void onLikesAdded(List<FilmLike> likes) {
+        if (likes.isEmpty()) {
+            return;
         }
-        Optional<Map.Entry<Long, Long>> mostIntersectionsUser = frequency.entrySet()
-                .stream()
-                .max(Map.Entry.comparingByValue());
-
-        return mostIntersectionsUser.map(Map.Entry::getKey).orElse(null);
+        Map<Long, Integer> likesByFilmId = new HashMap<>();
+        Set<Long> usersId = new HashSet<>();
+        List<Event> events = new ArrayList<>(likes.size());
+        Date now = new Date();
+        for (FilmLike like : likes) {
+            likesByFilmId.merge(like.getFilmId(), 1, Integer::sum);
+            usersId.add(like.getUserId());
+            events.add(new Event(like.getUserId(), like.getFilmId(), "LIKE", "ADD", now));
+        }
+        popularityLeaderboard.addLikes(likesByFilmId);
+        likeIndex.addLikes(likes);
+        similarFilmsIndex.onLikesChanged(usersId, likesByFilmId.keySet());
+        for (Long userId : usersId) {
+            minHashIndex.updateUser(userId);
+            recommendationCache.invalidate(userId);
+        }
+        feedWriter.writeAll(events);
     }
 
-    private Map<Long, ArrayList<Long>> getUsersIdWithLikedFilmsId(List<Map.Entry<Long, Long>> entriesUserIdLikedFilmId) {
-        Map<Long, ArrayList<Long>> usersIdWithLikedFilmsId = new HashMap<>();
-        for (Map.Entry<Long, Long> entryUserIdLikedFilmsId : entriesUserIdLikedFilmId) {
-            Long userId = entryUserIdLikedFilmsId.getKey();
-            if (usersIdWithLikedFilmsId.containsKey(userId)) {
-                Long filmId = entryUserIdLikedFilmsId.getValue();
-                usersIdWithLikedFilmsId.get(userId).add(filmId);
-            } else {
-                usersIdWithLikedFilmsId.put(userId,
-                        new ArrayList<>(Collections.singletonList(entryUserIdLikedFilmsId.getValue())));
-            }
-        }
-        return usersIdWithLikedFilmsId;
+    private static boolean isValid(FilmLike like) {
+        return like != null && like.getFilmId() != null && like.getUserId() != null;
     }
 }
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.index.LikeIndex;
+import ru.yandex.practicum.filmorate.index.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+/**
+ * Периодически сверяет денормализованный счётчик лайков
+ * фильмов и индекс лайков в памяти с таблицей лайков,
+ * а рейтинги популярности - со счётчиками лайков,
+ * и исправляет расхождения.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LikeCountReconciler {
+
+    private final FilmStorage filmStorage;
+    private final LikeIndex likeIndex;
+    private final PopularityLeaderboard popularityLeaderboard;
+
+    @Scheduled(initialDelayString = "${filmorate.likes.reconciliation-interval-ms}",
+            fixedDelayString = "${filmorate.likes.reconciliation-interval-ms}")
+    public void reconcileLikeCounts() {
+        int repaired = filmStorage.reconcileLikeCounts();
+        if (repaired > 0) {
+            log.warn("Like counters of {} film(s) did not match the likes table and were repaired", repaired);
+        } else {
+            log.debug("Like counters are consistent with the likes table");
+        }
+        int reranked = popularityLeaderboard.reload();
+        if (reranked > 0) {
+            log.warn("Popularity ranks of {} film(s) did not match the like counters and were reloaded", reranked);
+        } else {
+            log.debug("Popularity leaderboard is consistent with the like counters");
+        }
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.likes.reconciliation-interval-ms}",
+            fixedDelayString = "${filmorate.likes.reconciliation-interval-ms}")
+    public void reconcileLikeIndex() {
+        int repaired = likeIndex.reconcile();
+        if (repaired > 0) {
+            log.warn("Like index entries of {} user(s) and film(s) did not match the likes table and were reloaded",
+                    repaired);
+        } else {
+            log.debug("Like index is consistent with the likes table");
+        }
+        log.info("Like index holds {} likes, estimated size is {} bytes", likeIndex.getLikesCount(),
+                likeIndex.getEstimatedMemoryBytes());
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.index.LikeIndex;
+import ru.yandex.practicum.filmorate.index.RecommendationEngine;
+import ru.yandex.practicum.filmorate.model.Neighbor;
+import ru.yandex.practicum.filmorate.storage.neighbor.NeighborStorage;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Периодически рассчитывает ближайших соседей пользователей
+ * и сохраняет их в хранилище. Первый запуск обрабатывает всех
+ * пользователей, последующие - только тех, чьи лайки изменились.
+ * Если расчёт или сохранение не удались, пользователи снова
+ * отмечаются как изменившиеся и обрабатываются следующим запуском.
+ */
+@Service
+@Slf4j
+public class NeighborPrecomputationJob {
+
+    private final LikeIndex likeIndex;
+    private final RecommendationEngine recommendationEngine;
+    private final NeighborStorage neighborStorage;
+    private final ForkJoinPool pool;
+    private final Timer runTimer;
+    private final Counter usersCounter;
+    private boolean fullRunDone;
+
+    public NeighborPrecomputationJob(LikeIndex likeIndex, RecommendationEngine recommendationEngine,
+                                     NeighborStorage neighborStorage, ForkJoinPool recommendationPool,
+                                     MeterRegistry meterRegistry) {
+        this.likeIndex = likeIndex;
+        this.recommendationEngine = recommendationEngine;
+        this.neighborStorage = neighborStorage;
+        this.pool = recommendationPool;
+        this.runTimer = Timer.builder("filmorate.recommendations.neighbors.run")
+                .description("Duration of a neighbor precomputation run")
+                .register(meterRegistry);
+        this.usersCounter = Counter.builder("filmorate.recommendations.neighbors.users")
+                .description("Users whose neighbors were precomputed")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.recommendations.precompute-interval-ms}",
+            fixedDelayString = "${filmorate.recommendations.precompute-interval-ms}")
+    public void precomputeNeighbors() throws InterruptedException {
+        long start = System.nanoTime();
+        Set<Long> usersId = likeIndex.pollChangedUsersId();
+        if (!fullRunDone) {
+            usersId.addAll(likeIndex.getLikedFilmsByUserId().keySet());
+        }
+        if (usersId.isEmpty()) {
+            log.debug("No user likes have changed since the last neighbor precomputation");
+            return;
+        }
+
+        try {
+            Map<Long, List<Neighbor>> neighborsByUserId = pool.submit(() -> usersId.parallelStream()
+                    .collect(Collectors.toMap(userId -> userId, recommendationEngine::findNeighbors))).get();
+            neighborStorage.saveNeighbors(neighborsByUserId);
+        } catch (ExecutionException e) {
+            usersId.forEach(likeIndex::markChanged);
+            log.error("Neighbor precomputation has failed", e.getCause());
+            return;
+        } catch (RuntimeException | InterruptedException e) {
+            usersId.forEach(likeIndex::markChanged);
+            throw e;
+        }
+        fullRunDone = true;
+
+        long elapsedNanos = System.nanoTime() - start;
+        runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        usersCounter.increment(usersId.size());
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        log.info("Neighbors of {} user(s) are precomputed in {} ms ({} users/s)", usersId.size(), elapsedMillis,
+                usersId.size() * 1000L / Math.max(1, elapsedMillis));
+    }
+}
@@ -3,15 +3,18 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.config.PaginationProperties;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.Review;
-import ru.yandex.practicum.filmorate.storage.feed.FeedStorage;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.review.ReviewStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.Date;
-import java.util.List;
+
+import static ru.yandex.practicum.filmorate.validator.Validator.validatePageLimit;
 
 @Service
 @Slf4j
@@ -19,15 +22,16 @@ import java.util.List;
 public class ReviewService {
 
     private final ReviewStorage reviewStorage;
-    private final FeedStorage feedStorage;
+    private final FeedWriter feedWriter;
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
+    private final PaginationProperties paginationProperties;
 
     public Review addReview(Review review) {
         filmStorage.checkFilmExistsById(review.getFilmId());
         userStorage.checkUserExistsById(review.getUserId());
         Review createdReview = reviewStorage.addReview(review);
-        feedStorage.saveUserEvent(new Event(createdReview.getUserId(), createdReview.getReviewId(), "REVIEW", "ADD",
+        feedWriter.write(new Event(createdReview.getUserId(), createdReview.getReviewId(), "REVIEW", "ADD",
                 new Date()));
         log.info("A review with id: {} is added to the movie with id: {}", createdReview.getReviewId(), createdReview.getFilmId());
         return createdReview;
@@ -42,22 +46,41 @@ public class ReviewService {
     public void deleteReviewById(Long id) {
         Review ReviewToDelete = reviewStorage.getReviewById(id);
         reviewStorage.deleteReviewById(id);
-        feedStorage.saveUserEvent(new Event(ReviewToDelete.getUserId(), ReviewToDelete.getReviewId(), "REVIEW", "REMOVE",
+        feedWriter.write(new Event(ReviewToDelete.getUserId(), ReviewToDelete.getReviewId(), "REVIEW", "REMOVE",
                 new Date()));
         log.info("Review with id: {} is deleted", id);
     }
 
     public Review updateReviewById(Review review) {
         Review updatedReview = reviewStorage.updateReviewById(review);
-        feedStorage.saveUserEvent(new Event(updatedReview.getUserId(), updatedReview.getReviewId(), "REVIEW", "UPDATE",
+        feedWriter.write(new Event(updatedReview.getUserId(), updatedReview.getReviewId(), "REVIEW", "UPDATE",
                 new Date()));
         log.info("Review with id: {} is updated", review.getReviewId());
         return updatedReview;
     }
 
-    public List<Review> getReviewsByFilmIdOrAll(Long filmId, Long count) {
-        log.info("A list of reviews is requested");
-        return reviewStorage.getReviewsByFilmIdOrAll(filmId, count);
+    /**
+     * Курсор страницы отзывов имеет вид "useful:reviewId"
+     * и указывает на последний отзыв предыдущей страницы.
+     */
+    public CursorPage<Review> getReviews(Long filmId, String after, Integer limit, Long count) {
+        int pageLimit = limit != null ? limit : (int) Math.min(count, Integer.MAX_VALUE);
+        validatePageLimit(pageLimit, paginationProperties.getMaxLimit());
+        long afterUseful = Long.MAX_VALUE;
+        long afterId = 0;
+        if (after != null) {
+            int separator = after.lastIndexOf(':');
+            try {
+                afterUseful = Long.parseLong(after.substring(0, separator));
+                afterId = Long.parseLong(after.substring(separator + 1));
+            } catch (IndexOutOfBoundsException | NumberFormatException e) {
+                throw new ValidationException(String.format("The review cursor %s is invalid", after));
+            }
+        }
+
+        log.info("A page of {} reviews of the film with id: {} after {} is requested", pageLimit, filmId, after);
+        return CursorPage.of(reviewStorage.getReviewsPage(filmId, afterUseful, afterId, pageLimit), pageLimit,
+                review -> review.getUseful() + ":" + review.getReviewId());
     }
 
     public void addLikeToReview(Long id, Long userId) {
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.storage.review.ReviewStorage;
+
+/**
+ * Периодически сверяет денормализованную полезность
+ * отзывов с их оценками и исправляет расхождения.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReviewUsefulReconciler {
+
+    private final ReviewStorage reviewStorage;
+
+    @Scheduled(initialDelayString = "${filmorate.reviews.reconciliation-interval-ms}",
+            fixedDelayString = "${filmorate.reviews.reconciliation-interval-ms}")
+    public void reconcileReviewUsefulScores() {
+        int repaired = reviewStorage.reconcileUsefulScores();
+        if (repaired > 0) {
+            log.warn("Useful scores of {} review(s) did not match their ratings and were repaired", repaired);
+        } else {
+            log.debug("Review useful scores are consistent with the ratings");
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.index.LikeIndex;
+import ru.yandex.practicum.filmorate.index.SimilarFilmsIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Периодически пересчитывает похожие фильмы для всех фильмов
+ * с лайками. Фильмы обрабатываются пакетами, внутри пакета -
+ * параллельно в пуле фоновых расчётов рекомендаций.
+ */
+@Service
+@Slf4j
+public class SimilarFilmsRebuildJob {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final LikeIndex likeIndex;
+    private final SimilarFilmsIndex similarFilmsIndex;
+    private final ForkJoinPool pool;
+
+    public SimilarFilmsRebuildJob(LikeIndex likeIndex, SimilarFilmsIndex similarFilmsIndex,
+                                  ForkJoinPool recommendationPool) {
+        this.likeIndex = likeIndex;
+        this.similarFilmsIndex = similarFilmsIndex;
+        this.pool = recommendationPool;
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.recommendations.similar-films-rebuild-interval-ms}",
+            fixedDelayString = "${filmorate.recommendations.similar-films-rebuild-interval-ms}")
+    public void rebuildSimilarFilms() throws InterruptedException {
+        long start = System.nanoTime();
+        List<Long> filmsId = new ArrayList<>(likeIndex.getLikedFilmsId());
+        for (int from = 0; from < filmsId.size(); from += BATCH_SIZE) {
+            List<Long> batch = filmsId.subList(from, Math.min(from + BATCH_SIZE, filmsId.size()));
+            Map<Long, long[]> similarFilmsIdByFilmId;
+            try {
+                similarFilmsIdByFilmId = pool.submit(() -> batch.parallelStream()
+                        .collect(Collectors.toMap(filmId -> filmId, similarFilmsIndex::computeSimilarFilmsId))).get();
+            } catch (ExecutionException e) {
+                log.error("Similar films rebuild has failed", e.getCause());
+                return;
+            }
+            similarFilmsIdByFilmId.forEach(similarFilmsIndex::putSimilarFilms);
+        }
+        log.info("Similar films of {} film(s) are rebuilt in {} ms", filmsId.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.config.FeedProperties;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.feed.FeedStorage;
+import ru.yandex.practicum.filmorate.storage.timeline.TimelineStorage;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Рассылка событий по лентам друзей при записи. Событие
+ * добавляется в ленту каждого подписчика автора, поэтому чтение
+ * ленты друзей - один диапазонный запрос по индексу. Пользователь,
+ * число подписчиков которого превысило fan-out-followers-limit,
+ * переводится в режим чтения: его события больше не рассылаются,
+ * а добавляются в ленту при чтении. Режим сохраняется в хранилище
+ * и обратно не меняется, поэтому события, разосланные до смены
+ * режима, остаются в лентах и при чтении отбрасываются как повторы,
+ * а события после смены читаются из ленты автора.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TimelineFanOut {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final FeedStorage feedStorage;
+    private final TimelineStorage timelineStorage;
+    private final FriendGraph friendGraph;
+    private final FeedProperties feedProperties;
+    private final Set<Long> readTimeAuthorsId = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void load() {
+        readTimeAuthorsId.addAll(timelineStorage.getReadTimeAuthorsId());
+        log.info("Events of {} user(s) are merged into timelines on read", readTimeAuthorsId.size());
+    }
+
+    /**
+     * Метод заменяет режимы пользователей
+     * содержимым хранилища.
+     */
+    public void reload() {
+        readTimeAuthorsId.clear();
+        load();
+    }
+
+    /**
+     * Метод проверяет, рассылаются ли события
+     * пользователя при записи.
+     *
+     * @param userId идентификатор пользователя.
+     * @return false, если события пользователя
+     * добавляются в ленты при чтении.
+     */
+    public boolean isFannedOutOnWrite(Long userId) {
+        return !readTimeAuthorsId.contains(userId);
+    }
+
+    /**
+     * Метод рассылает по лентам друзей события,
+     * записанные после события с данным идентификатором.
+     *
+     * @param afterEventId идентификатор последнего
+     *                     уже разосланного события.
+     */
+    public void fanOut(long afterEventId) {
+        long afterId = afterEventId;
+        List<Event> events;
+        do {
+            events = feedStorage.getEventsAfter(afterId, BATCH_SIZE);
+            Map<Long, List<Long>> eventsIdByOwnerId = new HashMap<>();
+            for (Event event : events) {
+                if (updateMode(event.getUserId())) {
+                    for (Long followerId : friendGraph.getFollowersId(event.getUserId())) {
+                        eventsIdByOwnerId.computeIfAbsent(followerId, k -> new ArrayList<>()).add(event.getEventId());
+                    }
+                }
+                afterId = event.getEventId();
+            }
+            if (!eventsIdByOwnerId.isEmpty()) {
+                timelineStorage.addEvents(eventsIdByOwnerId);
+            }
+        } while (events.size() == BATCH_SIZE);
+    }
+
+    public void onFriendAdded(Long id, Long friendId) {
+        if (updateMode(friendId)) {
+            timelineStorage.addFriendEvents(id, friendId, feedProperties.getTimeline().getInboxSize());
+        }
+    }
+
+    public void onFriendRemoved(Long id, Long friendId) {
+        timelineStorage.removeFriendEvents(id, friendId);
+    }
+
+    public void onUserRemoved(Long userId) {
+        readTimeAuthorsId.remove(userId);
+    }
+
+    /**
+     * Метод переводит пользователя в режим чтения, если число
+     * его подписчиков превысило лимит. Режим сохраняется
+     * до того, как событие будет пропущено при рассылке.
+     *
+     * @return true, если события пользователя рассылаются при записи.
+     */
+    private boolean updateMode(Long userId) {
+        if (!isFannedOutOnWrite(userId)) {
+            return false;
+        }
+        if (friendGraph.getFollowersCount(userId) <= feedProperties.getTimeline().getFanOutFollowersLimit()) {
+            return true;
+        }
+        timelineStorage.addReadTimeAuthor(userId);
+        readTimeAuthorsId.add(userId);
+        log.info("Events of a user with id: {} are merged into timelines on read from now on", userId);
+        return false;
+    }
+}
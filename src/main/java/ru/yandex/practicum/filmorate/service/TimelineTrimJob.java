@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.config.FeedProperties;
+import ru.yandex.practicum.filmorate.storage.timeline.TimelineStorage;
+
+/**
+ * Периодически усекает ленты друзей до inbox-size
+ * последних событий.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TimelineTrimJob {
+
+    private final TimelineStorage timelineStorage;
+    private final FeedProperties feedProperties;
+
+    @Scheduled(initialDelayString = "${filmorate.feed.timeline.trim-interval-ms}",
+            fixedDelayString = "${filmorate.feed.timeline.trim-interval-ms}")
+    public void trimTimelines() {
+        int removed = timelineStorage.trimTimelines(feedProperties.getTimeline().getInboxSize());
+        log.info("{} timeline entries over the inbox size are removed", removed);
+    }
+}
@@ -3,15 +3,28 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.config.FriendSuggestionProperties;
+import ru.yandex.practicum.filmorate.config.PaginationProperties;
 import ru.yandex.practicum.filmorate.exception.ExistsException;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.index.FriendSuggestions;
+import ru.yandex.practicum.filmorate.index.LikeIndex;
+import ru.yandex.practicum.filmorate.index.MinHashIndex;
+import ru.yandex.practicum.filmorate.index.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.index.RecommendationCache;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.feed.FeedStorage;
+import ru.yandex.practicum.filmorate.storage.timeline.TimelineStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static ru.yandex.practicum.filmorate.validator.Validator.validateCount;
+import static ru.yandex.practicum.filmorate.validator.Validator.validatePageLimit;
 
 @Service
 @Slf4j
@@ -20,47 +33,67 @@ public class UserService {
 
     private final UserStorage userStorage;
     private final FeedStorage feedStorage;
+    private final FeedWriter feedWriter;
+    private final FeedStreamDispatcher feedStreamDispatcher;
+    private final TimelineFanOut timelineFanOut;
+    private final TimelineStorage timelineStorage;
+    private final PopularityLeaderboard popularityLeaderboard;
+    private final LikeIndex likeIndex;
+    private final MinHashIndex minHashIndex;
+    private final RecommendationCache recommendationCache;
+    private final FriendGraph friendGraph;
+    private final FriendSuggestions friendSuggestions;
+    private final PaginationProperties paginationProperties;
+    private final FriendSuggestionProperties friendSuggestionProperties;
 
     public void addFriend(Long id, Long friendId) {
         userStorage.checkUserExistsById(id);
         userStorage.checkUserExistsById(friendId);
-        User firstUser = userStorage.getUserById(id);
-        User secondUser = userStorage.getUserById(friendId);
-        if (firstUser.getFriends().contains(secondUser)) {
+        if (friendGraph.isFriend(id, friendId)) {
             throw new ExistsException(String.format(
                     "User with id: %d has already made user with id: %d his friend", id, friendId));
         }
         userStorage.addFriend(id, friendId);
-        feedStorage.saveUserEvent(new Event(id, friendId, "FRIEND", "ADD",  new Date()));
+        friendGraph.addFriend(id, friendId);
+        friendSuggestions.onFriendsChanged(id);
+        timelineFanOut.onFriendAdded(id, friendId);
+        feedWriter.write(new Event(id, friendId, "FRIEND", "ADD",  new Date()));
         log.info(String.format("A user with id: %d has made a user with id: %d a friend", id, friendId));
     }
 
     public void deleteFriend(Long id, Long friendId) {
         userStorage.checkUserExistsById(id);
         userStorage.checkUserExistsById(friendId);
-        User firstUser = userStorage.getUserById(id);
-        User secondUser = userStorage.getUserById(friendId);
-        if (!firstUser.getFriends().contains(secondUser)) {
+        if (!friendGraph.isFriend(id, friendId)) {
             throw new ExistsException(String.format(
                     "A user with id: %d is not friends with user with id: %d", id, friendId));
         }
         userStorage.removeFriend(id, friendId);
-        feedStorage.saveUserEvent(new Event(id, friendId, "FRIEND", "REMOVE",  new Date()));
+        friendGraph.removeFriend(id, friendId);
+        friendSuggestions.onFriendsChanged(id);
+        timelineFanOut.onFriendRemoved(id, friendId);
+        feedWriter.write(new Event(id, friendId, "FRIEND", "REMOVE",  new Date()));
         log.info(String.format("A user with id: %d has removed a user with id: %d from friends", id, friendId));
     }
 
     public List<User> getFriends(Long id) {
         userStorage.checkUserExistsById(id);
-        User user = userStorage.getUserById(id);
         log.info(String.format("User with id: %d requested a list of friends", id));
-        return new ArrayList<>(user.getFriends());
+        return userStorage.getUsersByIds(friendGraph.getFriendsId(id));
     }
 
     public List<User> getCommonFriends(Long id, Long secondId) {
         userStorage.checkUserExistsById(id);
         userStorage.checkUserExistsById(secondId);
         log.info(String.format("A user with id: %d requested a list of common friends with id: %d", id, secondId));
-        return userStorage.getCommonFriends(id, secondId);
+        return userStorage.getUsersByIds(friendGraph.getCommonFriendsId(id, secondId));
+    }
+
+    public List<User> getFriendSuggestions(Long id, Integer count) {
+        userStorage.checkUserExistsById(id);
+        validateCount(count, friendSuggestionProperties.getSize());
+        log.info("{} friend suggestions for a user with id: {} is/are requested", count, id);
+        return userStorage.getUsersByIds(friendSuggestions.getSuggestedUsersId(id, count));
     }
 
     public User createUser(User user) {
@@ -79,27 +112,114 @@ public class UserService {
         return userStorage.updateUser(user);
     }
 
-    public List<User> getUsers() {
-        log.info("A list of all users is requested");
-        return userStorage.getUsers();
+    public CursorPage<User> getUsers(Long after, Integer limit) {
+        if (after == null && limit == null && paginationProperties.isUnpaginatedListsEnabled()) {
+            log.info("A list of all users is requested");
+            return new CursorPage<>(userStorage.getUsers(), null);
+        }
+        int pageLimit = limit == null ? paginationProperties.getDefaultLimit() : limit;
+        validatePageLimit(pageLimit, paginationProperties.getMaxLimit());
+        long afterId = after == null ? 0 : after;
+
+        log.info("A page of {} users after id: {} is requested", pageLimit, afterId);
+        return CursorPage.of(userStorage.getUsersPage(afterId, pageLimit), pageLimit, User::getId);
+    }
+
+    public void streamUsers(Consumer<User> consumer) {
+        log.info("A stream of all users is requested");
+        userStorage.streamUsers(consumer);
     }
 
+    /**
+     * Пользователь читается из хранилища без друзей, а список
+     * друзей заполняется по графу друзей одним запросом.
+     */
     public User getUserById(Long id) {
-        userStorage.checkUserExistsById(id);
         log.info("A user with id: {} is requested", id);
-        return userStorage.getUserById(id);
+        User user = userStorage.getUserById(id);
+        user.getFriends().addAll(userStorage.getUsersByIds(friendGraph.getFriendsId(id)));
+        return user;
     }
 
     public void removeUserById(Long id) {
         userStorage.checkUserExistsById(id);
         log.info("A user with id: {} is removed", id);
-        userStorage.removeUserById(id);
+        feedWriter.flush();
+        List<Long> likedFilmsId = userStorage.removeUserById(id);
+        likedFilmsId.forEach(popularityLeaderboard::removeLike);
+        likeIndex.removeUser(id);
+        minHashIndex.removeUser(id);
+        recommendationCache.invalidate(id);
+        friendSuggestions.onUserRemoved(id);
+        friendGraph.removeUser(id);
+        timelineFanOut.onUserRemoved(id);
+    }
+
+    public CursorPage<Event> getFeed(Long id, Long before, Integer limit) {
+        userStorage.checkUserExistsById(id);
+        feedWriter.flush();
+        if (before == null && limit == null && paginationProperties.isUnpaginatedListsEnabled()) {
+            log.info("Requested event feed of a user with id: {}", id);
+            return new CursorPage<>(feedStorage.getFeed(id), null);
+        }
+        int pageLimit = limit == null ? paginationProperties.getDefaultLimit() : limit;
+        validatePageLimit(pageLimit, paginationProperties.getMaxLimit());
+        long beforeId = before == null ? Long.MAX_VALUE : before;
+
+        log.info("A page of {} feed events before id: {} of a user with id: {} is requested", pageLimit, beforeId, id);
+        List<Event> events = feedStorage.getFeedPage(id, beforeId, pageLimit);
+        String nextCursor = events.size() == pageLimit ? String.valueOf(events.get(0).getEventId()) : null;
+        return new CursorPage<>(events, nextCursor);
+    }
+
+    /**
+     * Лента друзей читается из ленты пользователя одним запросом
+     * по индексу. События друзей в режиме чтения дочитываются
+     * из их собственных лент, после чего страницы сливаются
+     * без повторов.
+     */
+    public CursorPage<Event> getTimeline(Long id, Long before, Integer limit) {
+        userStorage.checkUserExistsById(id);
+        feedWriter.flush();
+        NavigableMap<Long, Event> events = new TreeMap<>(Comparator.reverseOrder());
+        if (before == null && limit == null && paginationProperties.isUnpaginatedListsEnabled()) {
+            log.info("Requested timeline of a user with id: {}", id);
+            timelineStorage.getTimeline(id).forEach(event -> events.put(event.getEventId(), event));
+            for (Long friendId : friendGraph.getFriendsId(id)) {
+                if (!timelineFanOut.isFannedOutOnWrite(friendId)) {
+                    feedStorage.getFeed(friendId).forEach(event -> events.put(event.getEventId(), event));
+                }
+            }
+            return new CursorPage<>(new ArrayList<>(events.values()), null);
+        }
+        int pageLimit = limit == null ? paginationProperties.getDefaultLimit() : limit;
+        validatePageLimit(pageLimit, paginationProperties.getMaxLimit());
+        long beforeId = before == null ? Long.MAX_VALUE : before;
+
+        log.info("A page of {} timeline events before id: {} of a user with id: {} is requested",
+                pageLimit, beforeId, id);
+        timelineStorage.getTimelinePage(id, beforeId, pageLimit)
+                .forEach(event -> events.put(event.getEventId(), event));
+        for (Long friendId : friendGraph.getFriendsId(id)) {
+            if (!timelineFanOut.isFannedOutOnWrite(friendId)) {
+                feedStorage.getFeedPage(friendId, beforeId, pageLimit)
+                        .forEach(event -> events.put(event.getEventId(), event));
+            }
+        }
+        List<Event> page = new ArrayList<>(pageLimit);
+        for (Event event : events.values()) {
+            if (page.size() == pageLimit) {
+                break;
+            }
+            page.add(event);
+        }
+        return CursorPage.of(page, pageLimit, Event::getEventId);
     }
 
-    public List<Event> getFeed(Long id) {
+    public SseEmitter streamFeed(Long id, Long lastEventId) {
         userStorage.checkUserExistsById(id);
-        log.info("Requested event feed of a user with id: {}", id);
-        return feedStorage.getFeed(id);
+        log.info("A feed stream of a user with id: {} is requested from event id: {}", id, lastEventId);
+        return feedStreamDispatcher.subscribe(id, lastEventId);
     }
 
     private void checkPresenceUserName(User user) {
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.Data;
+
+/**
+ * Часто выполняемый запрос хранилища с примером
+ * параметров для проверки его плана выполнения.
+ */
+@Data
+public class HotQuery {
+
+    private final String name;
+    private final String sql;
+    private final Object[] args;
+
+    public HotQuery(String name, String sql, Object... args) {
+        this.name = name;
+        this.sql = sql;
+        this.args = args;
+    }
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.List;
+
+public interface HotQueryProvider {
+    /**
+     * Метод возвращает все читающие запросы хранилища,
+     * которые выполняются при обработке HTTP-запросов
+     * и записи событий и должны читать строки
+     * по условию индекса.
+     * Полные выгрузки таблиц для индексов в памяти
+     * и фоновые задачи обслуживания сюда не входят.
+     * Запросы со списком IN регистрируются с примером
+     * из нескольких значений.
+     *
+     * @return Список запросов с примерами параметров.
+     */
+    List<HotQuery> getHotQueries();
+}
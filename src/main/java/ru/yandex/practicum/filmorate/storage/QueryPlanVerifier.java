@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.config.QueryPlanProperties;
+import ru.yandex.practicum.filmorate.config.QueryPlanProperties.Verification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * После запуска приложения выполняет EXPLAIN для всех часто
+ * выполняемых запросов хранилищ. План не проходит проверку, если:
+ * - таблица читается целиком (tableScan в плане H2);
+ * - индекс обходится целиком, без условия поиска; исключение -
+ * MIN/MAX по индексу, который H2 читает с края (direct lookup);
+ * - строки с LIMIT сортируются после чтения, а не берутся
+ * в порядке индекса (нет пометки index sorted), то есть
+ * перед отбором первых строк сортируются все найденные.
+ */
+@Component
+@Slf4j
+public class QueryPlanVerifier {
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("\\.tableScan\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern INDEX_WITHOUT_CONDITION = Pattern.compile(
+            "/\\*\\s*\\w+\\.\\w+\\s*\\*/(?!\\s*/\\*\\s*direct lookup\\s*\\*/)");
+    private static final Pattern LIMIT_WITHOUT_INDEX_ORDER = Pattern.compile(
+            "FETCH FIRST [^\\n]*\\n(?!\\s*(/\\*\\s*index sorted\\s*\\*/|\\)))");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<HotQueryProvider> hotQueryProviders;
+    private final Verification verification;
+
+    public QueryPlanVerifier(JdbcTemplate jdbcTemplate, List<HotQueryProvider> hotQueryProviders,
+                             QueryPlanProperties queryPlanProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.hotQueryProviders = hotQueryProviders;
+        this.verification = queryPlanProperties.getVerification();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyQueryPlans() {
+        if (verification == Verification.OFF) {
+            return;
+        }
+
+        List<String> failedQueries = new ArrayList<>();
+        int verified = 0;
+        for (HotQueryProvider provider : hotQueryProviders) {
+            for (HotQuery query : provider.getHotQueries()) {
+                String plan = explain(query);
+                verified++;
+                List<String> problems = findProblems(plan);
+                if (!problems.isEmpty()) {
+                    failedQueries.add(query.getName());
+                    log.warn("Query {} {}:\n{}", query.getName(), String.join(", ", problems), plan);
+                }
+            }
+        }
+
+        if (failedQueries.isEmpty()) {
+            log.info("Query plans of {} hot queries read rows by index conditions", verified);
+        } else if (verification == Verification.FAIL) {
+            throw new IllegalStateException("Hot queries plan full scans or sorts: " + failedQueries);
+        } else {
+            log.warn("Query plans of {} of {} hot queries fail index checks: {}", failedQueries.size(), verified,
+                    failedQueries);
+        }
+    }
+
+    static List<String> findProblems(String plan) {
+        List<String> problems = new ArrayList<>();
+        if (TABLE_SCAN.matcher(plan).find()) {
+            problems.add("plans a full table scan");
+        }
+        if (INDEX_WITHOUT_CONDITION.matcher(plan).find()) {
+            problems.add("walks an index without a condition");
+        }
+        if (LIMIT_WITHOUT_INDEX_ORDER.matcher(plan + "\n").find()) {
+            problems.add("sorts all matching rows before the limit");
+        }
+        return problems;
+    }
+
+    private String explain(HotQuery query) {
+        List<String> planLines = jdbcTemplate.queryForList("EXPLAIN " + query.getSql(), String.class,
+                query.getArgs());
+        return String.join("\n", planLines);
+    }
+}
@@ -9,14 +9,27 @@ import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.exception.ExistsException;
 import ru.yandex.practicum.filmorate.exception.UnknownDirectorException;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.storage.HotQuery;
+import ru.yandex.practicum.filmorate.storage.HotQueryProvider;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.*;
+import java.util.List;
+import java.util.Objects;
 
 @Repository
-public class DbDirectorStorage implements DirectorStorage {
+public class DbDirectorStorage implements DirectorStorage, HotQueryProvider {
+    private static final String DIRECTOR_BY_ID_QUERY = "" +
+            "SELECT director_id, name " +
+            "FROM director " +
+            "WHERE director_id = ?";
+    private static final String DIRECTOR_EXISTS_QUERY = "" +
+            "SELECT EXISTS " +
+            "  (SELECT director_id " +
+            "   FROM director " +
+            "   WHERE director_id = ?)";
+
     private final JdbcTemplate jdbcTemplate;
 
     public DbDirectorStorage(JdbcTemplate jdbcTemplate) {
@@ -33,11 +46,7 @@ public class DbDirectorStorage implements DirectorStorage {
 
     @Override
     public Director getDirectorById(Long id) {
-        String sqlQuery = "" +
-                "SELECT director_id, name " +
-                "FROM director " +
-                "WHERE director_id = ?";
-        return jdbcTemplate.queryForObject(sqlQuery, new DirectorMapper(), id);
+        return jdbcTemplate.queryForObject(DIRECTOR_BY_ID_QUERY, new DirectorMapper(), id);
     }
 
     @Override
@@ -72,29 +81,6 @@ public class DbDirectorStorage implements DirectorStorage {
         jdbcTemplate.update(sqlQuery, id);
     }
 
-    @Override
-    public Map<Long, List<Director>> getDirectorsByFilmsId() {
-        String sqlQuery = "" +
-                "SELECT directors.film_id, director.director_id, director.name " +
-                "FROM directors " +
-                "JOIN director ON directors.director_id = director.director_id " +
-                "ORDER BY directors.film_id";
-        return jdbcTemplate.query(sqlQuery, this::extractDirectorsByFilmId);
-    }
-
-    @Override
-    public List<Director> getDirectorsByFilmId(Long id) {
-        String sqlQuery = "" +
-                "SELECT * " +
-                "FROM director " +
-                "WHERE director_id IN " +
-                "   (SELECT director_id " +
-                "    FROM directors " +
-                "    WHERE film_id = ?) " +
-                "ORDER BY director_id";
-        return jdbcTemplate.query(sqlQuery, new DirectorMapper(), id);
-    }
-
     @Override
     public void checkDirectorExistsById(Long id) {
         try {
@@ -106,27 +92,16 @@ public class DbDirectorStorage implements DirectorStorage {
 
     @Override
     public void checkDirectorNotExistById(Long id) {
-        String sqlQuery = "" +
-                "SELECT EXISTS " +
-                "  (SELECT director_id " +
-                "   FROM director " +
-                "   WHERE director_id = ?)";
-        jdbcTemplate.query(sqlQuery, (rs) -> {
+        jdbcTemplate.query(DIRECTOR_EXISTS_QUERY, (rs) -> {
             if (rs.getBoolean(1)) throw new ExistsException("The director already exists");
         }, id);
     }
 
-    private Map<Long, List<Director>> extractDirectorsByFilmId(ResultSet rs) throws SQLException {
-        Map<Long, List<Director>> directorsByFilmId = new LinkedHashMap<>();
-        while (rs.next()) {
-            Long filmId = rs.getLong("directors.film_id");
-            directorsByFilmId.putIfAbsent(filmId, new ArrayList<>());
-            Director director = new Director();
-            director.setId(rs.getLong("director.director_id"));
-            director.setName(rs.getString("director.name"));
-            directorsByFilmId.get(filmId).add(director);
-        }
-        return directorsByFilmId;
+    @Override
+    public List<HotQuery> getHotQueries() {
+        return List.of(
+                new HotQuery("directors.byId", DIRECTOR_BY_ID_QUERY, 1L),
+                new HotQuery("directors.exists", DIRECTOR_EXISTS_QUERY, 1L));
     }
 
     private static class DirectorMapper implements RowMapper<Director> {
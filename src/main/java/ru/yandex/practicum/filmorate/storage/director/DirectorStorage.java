@@ -3,7 +3,6 @@ package ru.yandex.practicum.filmorate.storage.director;
 import ru.yandex.practicum.filmorate.model.Director;
 
 import java.util.List;
-import java.util.Map;
 
 public interface DirectorStorage {
     /**
@@ -48,27 +47,6 @@ public interface DirectorStorage {
      */
     void removeDirectorById(Long id);
 
-    /**
-     * Метод возвращает Map, где ключ -
-     * идентификатор фильма, а значение -
-     * список режиссёров, принадлежащих этому
-     * ключу.
-     *
-     * @return Map идентификаторов фильма и
-     * режиссёров им принадлежащих.
-     */
-    Map<Long, List<Director>> getDirectorsByFilmsId();
-
-    /**
-     * Метод возвращает список режиссёров,
-     * принадлежащих фильму.
-     *
-     * @param id идентификатор фильма.
-     * @return Список режиссёров, принадлежащих
-     * идентификатору фильма.
-     */
-    List<Director> getDirectorsByFilmId(Long id);
-
     /**
      * Метод проверяет наличие режиссёра
      * в хранилище.
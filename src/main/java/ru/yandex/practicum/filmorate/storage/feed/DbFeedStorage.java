@@ -2,15 +2,60 @@ package ru.yandex.practicum.filmorate.storage.feed;
 
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.HotQuery;
+import ru.yandex.practicum.filmorate.storage.HotQueryProvider;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
 @Repository
-public class DbFeedStorage implements FeedStorage {
+public class DbFeedStorage implements FeedStorage, HotQueryProvider {
+
+    private static final String FEED_QUERY = "" +
+            "SELECT event_id, user_id, entity_id, event_type, operation, event_time " +
+            "FROM users_feed " +
+            "WHERE user_id = ? " +
+            "ORDER BY event_time";
+    private static final String INSERT_EVENT_QUERY = "" +
+            "INSERT INTO users_feed (user_id, entity_id, event_type, operation, event_time) " +
+            "VALUES (?, ?, ?, ?, ?)";
+    /**
+     * Страницы ленты читаются по индексам (user_id, event_id DESC)
+     * и (user_id, event_id): H2 не обходит индекс в обратном порядке.
+     * Столбец user_id стоит в начале ORDER BY, иначе H2 не видит
+     * совпадения порядка с индексом и сортирует все события автора.
+     */
+    private static final String FEED_PAGE_QUERY = "" +
+            "SELECT event_id, user_id, entity_id, event_type, operation, event_time " +
+            "FROM users_feed " +
+            "WHERE user_id = ? " +
+            "  AND event_id < ? " +
+            "ORDER BY user_id, event_id DESC " +
+            "LIMIT ?";
+
+    private static final String FEED_AFTER_QUERY = "" +
+            "SELECT event_id, user_id, entity_id, event_type, operation, event_time " +
+            "FROM users_feed " +
+            "WHERE user_id = ? " +
+            "  AND event_id > ? " +
+            "ORDER BY user_id, event_id " +
+            "LIMIT ?";
+
+    private static final String EVENTS_AFTER_QUERY = "" +
+            "SELECT event_id, user_id, entity_id, event_type, operation, event_time " +
+            "FROM users_feed " +
+            "WHERE event_id > ? " +
+            "ORDER BY event_id " +
+            "LIMIT ?";
+
+    private static final String LAST_EVENT_ID_QUERY = "" +
+            "SELECT COALESCE(MAX(event_id), 0) " +
+            "FROM users_feed";
 
     private final JdbcTemplate jdbcTemplate;
 
@@ -20,10 +65,7 @@ public class DbFeedStorage implements FeedStorage {
 
     @Override
     public void saveUserEvent(Event event) {
-        String sqlQuery = "" +
-                "INSERT INTO users_feed (user_id, entity_id, event_type, operation, event_time) " +
-                "VALUES (?, ?, ?, ?, ?)";
-        jdbcTemplate.update(sqlQuery,
+        jdbcTemplate.update(INSERT_EVENT_QUERY,
                 event.getUserId(),
                 event.getEntityId(),
                 event.getEventType(),
@@ -31,14 +73,79 @@ public class DbFeedStorage implements FeedStorage {
                 event.getTimestamp().getTime());
     }
 
+    @Override
+    public void saveUserEvents(List<Event> events) {
+        jdbcTemplate.batchUpdate(INSERT_EVENT_QUERY, events, events.size(), (ps, event) -> {
+            ps.setLong(1, event.getUserId());
+            ps.setLong(2, event.getEntityId());
+            ps.setString(3, event.getEventType());
+            ps.setString(4, event.getOperation());
+            ps.setLong(5, event.getTimestamp().getTime());
+        });
+    }
+
     @Override
     public List<Event> getFeed(Long id) {
+        return jdbcTemplate.query(FEED_QUERY, this::mapRowToEvent, id);
+    }
+
+    @Override
+    public List<Event> getFeedPage(Long id, Long beforeId, int limit) {
+        List<Event> events = jdbcTemplate.query(FEED_PAGE_QUERY, this::mapRowToEvent, id, beforeId, limit);
+        Collections.reverse(events);
+        return events;
+    }
+
+    @Override
+    public List<Event> getFeedAfter(Long id, Long afterId, int limit) {
+        return jdbcTemplate.query(FEED_AFTER_QUERY, this::mapRowToEvent, id, afterId, limit);
+    }
+
+    @Override
+    public List<Event> getEventsAfter(Long afterId, int limit) {
+        return jdbcTemplate.query(EVENTS_AFTER_QUERY, this::mapRowToEvent, afterId, limit);
+    }
+
+    @Override
+    public long getLastEventId() {
+        Long eventId = jdbcTemplate.queryForObject(LAST_EVENT_ID_QUERY, Long.class);
+        return eventId == null ? 0 : eventId;
+    }
+
+    @Override
+    @Transactional
+    public int archiveEventsBefore(long timestamp, int batchSize) {
         String sqlQuery = "" +
+                "SELECT event_id " +
+                "FROM users_feed " +
+                "WHERE event_time < ? " +
+                "ORDER BY event_time " +
+                "LIMIT ?";
+        List<Long> eventsId = jdbcTemplate.queryForList(sqlQuery, Long.class, timestamp, batchSize);
+        if (eventsId.isEmpty()) {
+            return 0;
+        }
+        String inSql = String.join(",", Collections.nCopies(eventsId.size(), "?"));
+        sqlQuery = String.format("" +
+                "INSERT INTO users_feed_archive (event_id, user_id, entity_id, event_type, operation, event_time) " +
                 "SELECT event_id, user_id, entity_id, event_type, operation, event_time " +
                 "FROM users_feed " +
-                "WHERE user_id = ? " +
-                "ORDER BY event_time";
-        return jdbcTemplate.query(sqlQuery, this::mapRowToEvent, id);
+                "WHERE event_id IN (%s)", inSql);
+        jdbcTemplate.update(sqlQuery, eventsId.toArray());
+        sqlQuery = String.format("" +
+                "DELETE FROM users_feed " +
+                "WHERE event_id IN (%s)", inSql);
+        return jdbcTemplate.update(sqlQuery, eventsId.toArray());
+    }
+
+    @Override
+    public List<HotQuery> getHotQueries() {
+        return List.of(
+                new HotQuery("feed.byUser", FEED_QUERY, 1L),
+                new HotQuery("feed.page", FEED_PAGE_QUERY, 1L, Long.MAX_VALUE, 100),
+                new HotQuery("feed.after", FEED_AFTER_QUERY, 1L, 0L, 100),
+                new HotQuery("feed.allAfter", EVENTS_AFTER_QUERY, Long.MAX_VALUE, 100),
+                new HotQuery("feed.lastEventId", LAST_EVENT_ID_QUERY));
     }
 
     private Event mapRowToEvent(ResultSet rs, int rowNum) throws SQLException {
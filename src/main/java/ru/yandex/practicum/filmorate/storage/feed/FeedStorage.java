@@ -12,6 +12,14 @@ public interface FeedStorage {
      */
     void saveUserEvent(Event event);
 
+    /**
+     * Метод записывает события в хранилище
+     * одной пакетной вставкой в порядке списка.
+     *
+     * @param events список событий.
+     */
+    void saveUserEvents(List<Event> events);
+
     /**
      * Метод возвращает список событий
      * связанных с пользователем.
@@ -21,4 +29,62 @@ public interface FeedStorage {
      * с пользователем.
      */
     List<Event> getFeed(Long id);
+
+    /**
+     * Метод возвращает страницу событий пользователя,
+     * предшествующих событию с данным идентификатором,
+     * в порядке возрастания идентификатора.
+     *
+     * @param id       идентификатор пользователя.
+     * @param beforeId идентификатор события, до которого
+     *                 выбираются события.
+     * @param limit    размер страницы.
+     * @return Страница событий пользователя.
+     */
+    List<Event> getFeedPage(Long id, Long beforeId, int limit);
+
+    /**
+     * Метод возвращает события пользователя, следующие
+     * за событием с данным идентификатором,
+     * в порядке возрастания идентификатора.
+     *
+     * @param id      идентификатор пользователя.
+     * @param afterId идентификатор события, после которого
+     *                выбираются события.
+     * @param limit   наибольшее число событий.
+     * @return Список событий пользователя.
+     */
+    List<Event> getFeedAfter(Long id, Long afterId, int limit);
+
+    /**
+     * Метод возвращает события всех пользователей, следующие
+     * за событием с данным идентификатором,
+     * в порядке возрастания идентификатора.
+     *
+     * @param afterId идентификатор события, после которого
+     *                выбираются события.
+     * @param limit   наибольшее число событий.
+     * @return Список событий.
+     */
+    List<Event> getEventsAfter(Long afterId, int limit);
+
+    /**
+     * Метод возвращает идентификатор последнего
+     * записанного события.
+     *
+     * @return Идентификатор события или 0,
+     * если событий нет.
+     */
+    long getLastEventId();
+
+    /**
+     * Метод переносит в архив события, созданные
+     * раньше указанного момента времени.
+     *
+     * @param timestamp момент времени в миллисекундах.
+     * @param batchSize наибольшее число событий,
+     *                  переносимых за один вызов.
+     * @return Количество перенесённых событий.
+     */
+    int archiveEventsBefore(long timestamp, int batchSize);
 }
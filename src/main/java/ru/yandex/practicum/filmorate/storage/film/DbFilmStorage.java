@@ -1,23 +1,62 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.ExistsException;
 import ru.yandex.practicum.filmorate.exception.UnknownFilmException;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.HotQuery;
+import ru.yandex.practicum.filmorate.storage.HotQueryProvider;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Repository
-public class DbFilmStorage implements FilmStorage {
+public class DbFilmStorage implements FilmStorage, HotQueryProvider {
+
+    private static final int STREAM_PAGE_SIZE = 500;
+    private static final String FILM_BY_ID_SELECTION = "" +
+            "SELECT film_id, like_count rate " +
+            "FROM films " +
+            "WHERE film_id = ?";
+    private static final String FILMS_PAGE_SELECTION = "" +
+            "SELECT film_id, like_count rate " +
+            "FROM films " +
+            "WHERE film_id > ? " +
+            "ORDER BY film_id " +
+            "LIMIT ?";
+    private static final String FILMS_BY_DIRECTOR_SELECTION = "" +
+            "SELECT film_id, like_count rate " +
+            "FROM films " +
+            "WHERE film_id IN " +
+            "   (SELECT film_id " +
+            "    FROM directors " +
+            "    WHERE director_id = ?)";
+    private static final String ORDER_BY_ID = "f.film_id";
+    private static final String ORDER_BY_RATE = "sel.rate DESC, f.film_id";
+    private static final String ORDER_BY_RELEASE_DATE = "f.release_date, f.film_id";
+    private static final String FILM_EXISTS_QUERY = "" +
+            "SELECT EXISTS " +
+            "  (SELECT film_id " +
+            "   FROM films " +
+            "   WHERE film_id = ?)";
+    private static final String LIKE_EXISTS_QUERY = "" +
+            "SELECT EXISTS " +
+            "  (SELECT user_id " +
+            "   FROM likes " +
+            "   WHERE user_id = ? " +
+            "     AND film_id = ?)";
 
     private final JdbcTemplate jdbcTemplate;
 
@@ -46,7 +85,7 @@ public class DbFilmStorage implements FilmStorage {
         if (!film.getDirectors().isEmpty()) {
             addDirectors(film.getDirectors(), (long) keyHolder.getKey());
         }
-        return getFilmByIdWithoutGenresAndDirectors((long) keyHolder.getKey());
+        return getFilmById((long) keyHolder.getKey());
     }
 
     @Override
@@ -73,47 +112,130 @@ public class DbFilmStorage implements FilmStorage {
         });
         addGenres(film.getGenres(), film.getId());
         addDirectors(film.getDirectors(), film.getId());
-        return getFilmByIdWithoutGenresAndDirectors(film.getId());
+        return getFilmById(film.getId());
     }
 
     @Override
+    @Transactional
     public void addLikeFilm(Long id, Long userId) {
         String sqlQuery = "" +
                 "INSERT INTO likes (film_id, user_id) " +
                 "VALUES (?, ?)";
         jdbcTemplate.update(sqlQuery, id, userId);
+        updateLikeCount(id, 1);
     }
 
     @Override
-    public void removeLikeFilm(Long id, Long userId) {
+    @Transactional
+    public boolean removeLikeFilm(Long id, Long userId) {
         String sqlQuery = "" +
                 "DELETE FROM likes " +
                 "WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sqlQuery, id, userId);
+        if (jdbcTemplate.update(sqlQuery, id, userId) == 0) {
+            return false;
+        }
+        updateLikeCount(id, -1);
+        return true;
     }
 
     @Override
-    public List<Film> getFilmsWithoutGenresAndDirectors() {
+    @Transactional
+    public boolean[] addLikes(List<FilmLike> likes) {
         String sqlQuery = "" +
-                "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, mpa.name, " +
-                "       COUNT (l.user_id) rate " +
-                "FROM films f " +
-                "LEFT JOIN likes l on f.film_id = l.film_id " +
-                "LEFT JOIN mpa ON f.mpa_id = mpa.mpa_id " +
-                "GROUP BY f.film_id";
-        return jdbcTemplate.query(sqlQuery, this::mapRowToFilm);
+                "MERGE INTO likes AS l " +
+                "USING (VALUES (CAST(? AS bigint), CAST(? AS bigint))) AS s (film_id, user_id) " +
+                "ON l.film_id = s.film_id AND l.user_id = s.user_id " +
+                "WHEN NOT MATCHED THEN " +
+                "   INSERT (film_id, user_id) " +
+                "   VALUES (s.film_id, s.user_id)";
+        Integer[] order = new Integer[likes.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer, Long>comparing(i -> likes.get(i).getFilmId())
+                .thenComparing(i -> likes.get(i).getUserId()));
+        int[] counts = jdbcTemplate.batchUpdate(sqlQuery, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                FilmLike like = likes.get(order[i]);
+                ps.setLong(1, like.getFilmId());
+                ps.setLong(2, like.getUserId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return likes.size();
+            }
+        });
+
+        boolean[] added = new boolean[likes.size()];
+        Map<Long, Integer> deltas = new TreeMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            added[order[i]] = counts[i] > 0;
+            if (counts[i] > 0) {
+                deltas.merge(likes.get(order[i]).getFilmId(), 1, Integer::sum);
+            }
+        }
+        sqlQuery = "" +
+                "UPDATE films " +
+                "SET like_count = like_count + ? " +
+                "WHERE film_id = ?";
+        jdbcTemplate.batchUpdate(sqlQuery, deltas.entrySet(), 100, (ps, delta) -> {
+            ps.setInt(1, delta.getValue());
+            ps.setLong(2, delta.getKey());
+        });
+        return added;
     }
 
     @Override
-    public Film getFilmByIdWithoutGenresAndDirectors(Long id) {
+    @Transactional
+    public int reconcileLikeCounts() {
         String sqlQuery = "" +
-                "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, mpa.name, " +
-                "       COUNT (l.user_id) rate " +
-                "FROM films f " +
-                "LEFT JOIN likes l on f.film_id = l.film_id " +
-                "JOIN mpa ON f.mpa_id = mpa.mpa_id " +
-                "WHERE f.film_id = ?";
-        return jdbcTemplate.queryForObject(sqlQuery, this::mapRowToFilm, id);
+                "UPDATE films AS f " +
+                "SET like_count = " +
+                "   (SELECT COUNT(*) " +
+                "    FROM likes AS l " +
+                "    WHERE l.film_id = f.film_id) " +
+                "WHERE like_count <> " +
+                "   (SELECT COUNT(*) " +
+                "    FROM likes AS l " +
+                "    WHERE l.film_id = f.film_id)";
+        return jdbcTemplate.update(sqlQuery);
+    }
+
+    @Override
+    public List<Film> getFilms() {
+        String selection = "" +
+                "SELECT film_id, like_count rate " +
+                "FROM films";
+        return queryFilms(selection, ORDER_BY_ID);
+    }
+
+    @Override
+    public void streamFilms(Consumer<Film> consumer) {
+        long afterId = 0;
+        List<Film> films;
+        do {
+            films = getFilmsPage(afterId, STREAM_PAGE_SIZE);
+            films.forEach(consumer);
+            if (!films.isEmpty()) {
+                afterId = films.get(films.size() - 1).getId();
+            }
+        } while (films.size() == STREAM_PAGE_SIZE);
+    }
+
+    @Override
+    public List<Film> getFilmsPage(Long afterId, int limit) {
+        return queryFilms(FILMS_PAGE_SELECTION, ORDER_BY_ID, afterId, limit);
+    }
+
+    @Override
+    public Film getFilmById(Long id) {
+        List<Film> films = queryFilms(FILM_BY_ID_SELECTION, ORDER_BY_ID, id);
+        if (films.isEmpty()) {
+            throw new UnknownFilmException(String.format("Film with id: %d is not found", id));
+        }
+        return films.get(0);
     }
 
     @Override
@@ -125,24 +247,14 @@ public class DbFilmStorage implements FilmStorage {
     }
 
     @Override
-    public List<Film> getFilmsByDirectorWithoutGenresAndDirectors(Long directorId, String sortBy) {
-        String sqlQuery = "" +
-                "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, mpa.name, " +
-                "       COUNT (l.user_id) rate " +
-                "FROM films f " +
-                "LEFT OUTER JOIN likes l on f.film_id = l.film_id " +
-                "JOIN mpa ON f.mpa_id = mpa.mpa_id " +
-                "WHERE f.film_id IN " +
-                "   (SELECT film_id " +
-                "    FROM directors " +
-                "    WHERE director_id = ?) " +
-                "GROUP BY f.film_id ";
+    public List<Film> getFilmsByDirector(Long directorId, String sortBy) {
+        String orderBy = ORDER_BY_ID;
         if ("likes".equals(sortBy)) {
-            sqlQuery += "ORDER BY COUNT (l.user_id) DESC";
+            orderBy = ORDER_BY_RATE;
         } else if ("year".equals(sortBy)) {
-            sqlQuery += "ORDER BY f.release_date";
+            orderBy = ORDER_BY_RELEASE_DATE;
         }
-        return jdbcTemplate.query(sqlQuery, this::mapRowToFilm, directorId);
+        return queryFilms(FILMS_BY_DIRECTOR_SELECTION, orderBy, directorId);
     }
 
     @Override
@@ -155,159 +267,126 @@ public class DbFilmStorage implements FilmStorage {
     }
 
     @Override
-    public List<Film> getListPopularFilm(long count) {
-        final String sqlQuery = "" +
-                "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name, " +
-                "       COUNT(l.user_id) rate " +
-                "FROM films AS f " +
-                "JOIN mpa AS m ON m.mpa_id = f.mpa_id " +
-                "LEFT JOIN likes AS l ON f.film_id = l.film_id " +
-                "GROUP BY f.film_id " +
-                "ORDER BY rate DESC " +
-                "LIMIT ?";
-        return jdbcTemplate.query(sqlQuery, this::mapRowToFilm, count);
+    public void checkFilmExistsById(Long id) {
+        jdbcTemplate.query(FILM_EXISTS_QUERY, (rs) -> {
+            if (!rs.getBoolean(1)) throw new UnknownFilmException(String.format("Film with id: %d is not found", id));
+        }, id);
     }
 
     @Override
-    public List<Film> getListPopularFilmSortedByYear(int count, int year) {
-        final String sql = "" +
-                "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name, " +
-                "       COUNT(l.user_id) rate " +
-                "FROM films AS f " +
-                "JOIN mpa AS m ON m.mpa_id = f.mpa_id " +
-                "LEFT JOIN likes AS l ON f.film_id = l.film_id " +
-                "WHERE YEAR(f.release_date) = ? " +
-                "GROUP BY f.film_id " +
-                "ORDER BY rate DESC " +
-                "LIMIT ?";
-        Set<Film> films = new HashSet<>(jdbcTemplate.query(sql, this::mapRowToFilm, year, count));
-        return new ArrayList<>(films);
+    public void checkFilmNotExistById(Long id) {
+        jdbcTemplate.query(FILM_EXISTS_QUERY, (rs) -> {
+            if (rs.getBoolean(1)) throw new ExistsException("The film already exists");
+        }, id);
     }
 
     @Override
-    public List<Film> getListPopularFilmSortedByGenre(int count, long genreId) {
-        final String sql = "" +
-                "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name, g.genre_id, " +
-                "       COUNT (l.user_id) rate " +
-                "FROM films AS f " +
-                "JOIN mpa AS m ON m.mpa_id = f.mpa_id " +
-                "LEFT JOIN genres AS g ON f.film_id = g.film_id " +
-                "LEFT JOIN likes AS l ON f.film_id = l.film_id " +
-                "WHERE g.genre_id = ? " +
-                "GROUP BY f.film_id, g.genre_id " +
-                "ORDER BY rate DESC " +
-                "LIMIT ?";
-        Set<Film> films = new HashSet<>(jdbcTemplate.query(sql, this::mapRowToFilm, genreId, count));
-        return new ArrayList<>(films);
+    public void checkUserLikeToFilmNotExist(Long id, Long userId) {
+        jdbcTemplate.query(LIKE_EXISTS_QUERY, (rs) -> {
+            if (rs.getBoolean(1)) {
+                throw new ExistsException(String.format("A user with id: %d has already liked a film with id: %d",
+                        userId, id));
+            }
+        }, userId, id);
     }
 
     @Override
-    public List<Film> findPopularFilmSortedByGenreAndYear(int count, long genreId, int year) {
-        final String sql = "" +
-                "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name, g.genre_id," +
-                "       COUNT (l.user_id) rate " +
-                "FROM films AS f " +
-                "JOIN mpa AS m ON m.mpa_id = f.mpa_id " +
-                "LEFT JOIN genres AS g ON f.film_id = g.film_id " +
-                "LEFT JOIN likes AS l ON f.film_id = l.film_id " +
-                "WHERE g.genre_id = ? = ? AND YEAR(f.release_date) = ? " +
-                "GROUP BY f.film_id, g.genre_id " +
-                "ORDER BY rate DESC " +
-                "LIMIT ?";
-        Set<Film> films = new HashSet<>(jdbcTemplate.query(sql, this::mapRowToFilm, genreId, year, count));
-        return new ArrayList<>(films);
+    public List<Film> getFilmsSortedByPopularity(List<Long> matchingIds) {
+        if (matchingIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return queryFilms(buildFilmsByIdsSelection(matchingIds.size()), ORDER_BY_RATE, matchingIds.toArray());
     }
 
     @Override
-    public List<Film> getCommonFilms(Long userId, Long friendId) {
-        String sqlQuery = "" +
-                "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name, " +
-                "       COUNT (l.user_id) rate " +
-                "FROM films AS f " +
-                "JOIN mpa AS m ON f.mpa_id = m.mpa_id " +
-                "JOIN likes AS l on l.film_id = f.film_id " +
-                "WHERE f.film_id IN " +
-                "   (SELECT film_id " +
-                "    FROM likes " +
-                "    WHERE user_id = ? " +
-                "    INTERSECT SELECT film_id " +
-                "    FROM likes " +
-                "    WHERE user_id = ?) " +
-                "GROUP BY f.film_id " +
-                "ORDER BY rate DESC";
-        return jdbcTemplate.query(sqlQuery, this::mapRowToFilm, userId, friendId);
+    public List<Film> getFilmsByIds(List<Long> filmsId) {
+        if (filmsId.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Film> filmsById = new HashMap<>();
+        for (Film film : queryFilms(buildFilmsByIdsSelection(filmsId.size()), ORDER_BY_ID, filmsId.toArray())) {
+            filmsById.put(film.getId(), film);
+        }
+        List<Film> films = new ArrayList<>();
+        for (Long filmId : filmsId) {
+            if (filmsById.containsKey(filmId)) {
+                films.add(filmsById.get(filmId));
+            }
+        }
+        return films;
     }
 
     @Override
-    public List<Map.Entry<Long, String>> searchFilmsWithoutGenresAndDirectorsByTitle(String query) {
-        final String sqlQuery = "" +
-                "SELECT name, film_id " +
-                "FROM films";
-        return jdbcTemplate.query(sqlQuery, this::mapRowToMapEntryFilmIdFilmName);
+    public List<HotQuery> getHotQueries() {
+        return List.of(
+                new HotQuery("films.byId", buildFilmsQuery(FILM_BY_ID_SELECTION, ORDER_BY_ID), 1L),
+                new HotQuery("films.page", buildFilmsQuery(FILMS_PAGE_SELECTION, ORDER_BY_ID), 0L, 100),
+                new HotQuery("films.byIds", buildFilmsQuery(buildFilmsByIdsSelection(3), ORDER_BY_ID), 1L, 2L, 3L),
+                new HotQuery("films.byIdsSortedByRate", buildFilmsQuery(buildFilmsByIdsSelection(3), ORDER_BY_RATE),
+                        1L, 2L, 3L),
+                new HotQuery("films.byDirector", buildFilmsQuery(FILMS_BY_DIRECTOR_SELECTION, ORDER_BY_ID), 1L),
+                new HotQuery("films.byDirectorSortedByRate",
+                        buildFilmsQuery(FILMS_BY_DIRECTOR_SELECTION, ORDER_BY_RATE), 1L),
+                new HotQuery("films.byDirectorSortedByYear",
+                        buildFilmsQuery(FILMS_BY_DIRECTOR_SELECTION, ORDER_BY_RELEASE_DATE), 1L),
+                new HotQuery("films.exists", FILM_EXISTS_QUERY, 1L),
+                new HotQuery("films.existingIds", buildExistingFilmsIdQuery(3), 1L, 2L, 3L),
+                new HotQuery("likes.exists", LIKE_EXISTS_QUERY, 1L, 1L));
     }
 
-    @Override
-    public List<Map.Entry<Long, String>> searchFilmsWithoutGenresAndDirectorsByDirector(String query) {
-        final String sqlQuery = "" +
-                "SELECT dir.name AS director_name, dirs.film_id " +
-                "FROM directors AS dirs " +
-                "LEFT JOIN director AS dir ON dirs.director_id = dir.director_id";
-        return jdbcTemplate.query(sqlQuery, this::mapRowToMapEntryFilmIdDirectorName);
+    /**
+     * Read model фильма: выборка {@code selection} должна вернуть
+     * столбцы film_id и rate, после чего фильмы вместе с MPA, жанрами
+     * и режиссёрами собираются из одного запроса.
+     */
+    private List<Film> queryFilms(String selection, String orderBy, Object... args) {
+        return jdbcTemplate.query(buildFilmsQuery(selection, orderBy), this::extractFilms, args);
     }
 
-    @Override
-    public void checkFilmExistsById(Long id) {
-        String sqlQuery = "" +
-                "SELECT EXISTS " +
-                "  (SELECT film_id " +
-                "   FROM films " +
-                "   WHERE film_id = ?)";
-        jdbcTemplate.query(sqlQuery, (rs) -> {
-            if (!rs.getBoolean(1)) throw new UnknownFilmException(String.format("Film with id: %d is not found", id));
-        }, id);
+    private String buildFilmsQuery(String selection, String orderBy) {
+        return String.format("" +
+                "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, " +
+                "       m.name AS mpa_name, sel.rate, g.genre_id, gn.name AS genre_name, " +
+                "       d.director_id, dn.name AS director_name " +
+                "FROM (%s) AS sel " +
+                "JOIN films AS f ON f.film_id = sel.film_id " +
+                "JOIN mpa AS m ON f.mpa_id = m.mpa_id " +
+                "LEFT JOIN genres AS g ON f.film_id = g.film_id " +
+                "LEFT JOIN genre AS gn ON g.genre_id = gn.genre_id " +
+                "LEFT JOIN directors AS d ON f.film_id = d.film_id " +
+                "LEFT JOIN director AS dn ON d.director_id = dn.director_id " +
+                "ORDER BY %s, g.genre_id, d.director_id", selection, orderBy);
     }
 
-    @Override
-    public void checkFilmNotExistById(Long id) {
-        String sqlQuery = "" +
-                "SELECT EXISTS " +
-                "  (SELECT film_id " +
-                "   FROM films " +
-                "   WHERE film_id = ?)";
-        jdbcTemplate.query(sqlQuery, (rs) -> {
-            if (rs.getBoolean(1)) throw new ExistsException("The film already exists");
-        }, id);
+    private static String buildFilmsByIdsSelection(int count) {
+        return String.format("" +
+                "SELECT film_id, like_count rate " +
+                "FROM films " +
+                "WHERE film_id IN (%s)", String.join(",", Collections.nCopies(count, "?")));
     }
 
-    @Override
-    public void checkUserLikeToFilmNotExist(Long id, Long userId) {
-        String sqlQuery = "" +
-                "SELECT EXISTS " +
-                "  (SELECT user_id " +
-                "   FROM likes " +
-                "   WHERE user_id = ? " +
-                "     AND film_id = ?)";
-        jdbcTemplate.query(sqlQuery, (rs) -> {
-            if (rs.getBoolean(1)) {
-                throw new ExistsException(String.format("A user with id: %d has already liked a film with id: %d",
-                        userId, id));
-            }
-        }, userId, id);
+    private static String buildExistingFilmsIdQuery(int count) {
+        return String.format("" +
+                "SELECT film_id " +
+                "FROM films " +
+                "WHERE film_id IN (%s)", String.join(",", Collections.nCopies(count, "?")));
     }
 
     @Override
-    public List<Film> getFilmsSortedByPopularity(List<Long> matchingIds) {
-        String inSql = String.join(",", Collections.nCopies(matchingIds.size(), "?"));
-        String sqlQuery = String.format("" +
-                "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, mpa.name, " +
-                "COUNT (l.user_id) rate " +
-                "FROM films f " +
-                "LEFT JOIN likes l on f.film_id = l.film_id " +
-                "LEFT JOIN mpa ON f.mpa_id = mpa.mpa_id " +
-                "WHERE f.film_id IN (%s) " +
-                "GROUP BY f.film_id " +
-                "ORDER BY rate DESC", inSql);
-        return jdbcTemplate.query(sqlQuery, this::mapRowToFilm, matchingIds.toArray());
+    public Set<Long> getExistingFilmsId(Collection<Long> filmsId) {
+        if (filmsId.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(buildExistingFilmsIdQuery(filmsId.size()), Long.class,
+                filmsId.toArray()));
+    }
+
+    private void updateLikeCount(Long id, int delta) {
+        String sqlQuery = "" +
+                "UPDATE films " +
+                "SET like_count = like_count + ? " +
+                "WHERE film_id = ?";
+        jdbcTemplate.update(sqlQuery, delta, id);
     }
 
     private void addGenres(Set<Genre> genres, Long id) {
@@ -330,7 +409,42 @@ public class DbFilmStorage implements FilmStorage {
         });
     }
 
-    private Film mapRowToFilm(ResultSet rs, int rowNum) throws SQLException {
+    private List<Film> extractFilms(ResultSet rs) throws SQLException {
+        List<Film> films = new ArrayList<>();
+        Film film = null;
+        while (rs.next()) {
+            Film rowFilm = mapRowToFilmGraph(rs, film);
+            if (rowFilm != film) {
+                films.add(rowFilm);
+                film = rowFilm;
+            }
+        }
+        return films;
+    }
+
+    /**
+     * Метод дополняет текущий фильм жанром и режиссёром из строки
+     * read model либо, если строка относится к следующему фильму,
+     * создаёт новый фильм.
+     */
+    private Film mapRowToFilmGraph(ResultSet rs, Film currentFilm) throws SQLException {
+        Film film = currentFilm;
+        long filmId = rs.getLong("film_id");
+        if (film == null || film.getId() != filmId) {
+            film = mapRowToFilm(rs);
+        }
+        long genreId = rs.getLong("genre_id");
+        if (!rs.wasNull()) {
+            film.getGenres().add(new Genre(genreId, rs.getString("genre_name")));
+        }
+        long directorId = rs.getLong("director_id");
+        if (!rs.wasNull()) {
+            film.getDirectors().add(new Director(directorId, rs.getString("director_name")));
+        }
+        return film;
+    }
+
+    private Film mapRowToFilm(ResultSet rs) throws SQLException {
         return new Film(
                 rs.getLong("film_id"),
                 rs.getString("name"),
@@ -339,8 +453,8 @@ public class DbFilmStorage implements FilmStorage {
                 rs.getLong("duration"),
                 rs.getLong("rate"),
                 new Mpa(
-                        rs.getLong("films.mpa_id"),
-                        rs.getString("mpa.name"))
+                        rs.getLong("mpa_id"),
+                        rs.getString("mpa_name"))
         );
     }
 
@@ -349,17 +463,4 @@ public class DbFilmStorage implements FilmStorage {
         Long filmId = rs.getLong("film_id");
         return new AbstractMap.SimpleEntry<>(userId, filmId);
     }
-
-    private Map.Entry<Long, String> mapRowToMapEntryFilmIdFilmName(ResultSet rs, int i) throws SQLException {
-        Long filmId = rs.getLong("film_id");
-        String name = rs.getString("name");
-        return new AbstractMap.SimpleEntry<>(filmId, name);
-    }
-
-    private Map.Entry<Long, String> mapRowToMapEntryFilmIdDirectorName(ResultSet rs, int i) throws SQLException {
-        Long filmId = rs.getLong("film_id");
-        String name = rs.getString("director_name");
-        return new AbstractMap.SimpleEntry<>(filmId, name);
-    }
 }
-
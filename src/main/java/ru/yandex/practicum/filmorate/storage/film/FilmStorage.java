@@ -1,9 +1,13 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
     /**
@@ -23,16 +27,37 @@ public interface FilmStorage {
     Film updateFilm(Film film);
 
     /**
-     * Метод возвращает список фильмов,
-     * без заполненных жанров
+     * Метод возвращает список всех фильмов
+     * с заполненными жанрами и режиссёрами.
      *
-     * @return список фильмов без заполненных
-     * жанров.
+     * @return Список фильмов.
      */
-    List<Film> getFilmsWithoutGenresAndDirectors();
+    List<Film> getFilms();
 
     /**
-     * Метод добавляет в хранилище лайк.
+     * Метод передаёт потребителю все фильмы по одному,
+     * читая их из хранилища страницами по идентификатору,
+     * без накопления списка в памяти.
+     *
+     * @param consumer потребитель фильмов.
+     */
+    void streamFilms(Consumer<Film> consumer);
+
+    /**
+     * Метод возвращает страницу фильмов,
+     * упорядоченных по идентификатору.
+     *
+     * @param afterId идентификатор, после которого
+     *                начинается страница.
+     * @param limit   размер страницы.
+     * @return Страница фильмов.
+     */
+    List<Film> getFilmsPage(Long afterId, int limit);
+
+    /**
+     * Метод добавляет в хранилище лайк и
+     * в той же транзакции увеличивает
+     * счётчик лайков фильма.
      *
      * @param id     идентификатор фильма.
      * @param userId идентификатор пользователя.
@@ -40,20 +65,49 @@ public interface FilmStorage {
     void addLikeFilm(Long id, Long userId);
 
     /**
-     * Метод удаляет лайк из хранилища.
+     * Метод удаляет лайк из хранилища и
+     * в той же транзакции уменьшает
+     * счётчик лайков фильма.
      *
      * @param id     идентификатор фильма.
      * @param userId идентификатор пользователя.
+     * @return true, если лайк был удалён.
+     */
+    boolean removeLikeFilm(Long id, Long userId);
+
+    /**
+     * Метод добавляет лайки пакетным MERGE, пропуская
+     * уже существующие, и в той же транзакции увеличивает
+     * счётчики лайков фильмов на число вставленных строк.
+     * Строки вставляются в порядке первичного ключа, чтобы
+     * соседние вставки попадали в одни страницы индексов.
+     *
+     * @param likes пары идентификаторов фильма и пользователя
+     *              без повторов.
+     * @return Признаки добавления лайков в порядке списка:
+     * false, если лайк уже был.
+     */
+    boolean[] addLikes(List<FilmLike> likes);
+
+    /**
+     * Метод сверяет счётчики лайков фильмов
+     * с таблицей лайков и исправляет
+     * расхождения.
+     *
+     * @return Количество исправленных фильмов.
      */
-    void removeLikeFilm(Long id, Long userId);
+    int reconcileLikeCounts();
 
     /**
-     * Метод возвращает фильм по его идентификатору.
+     * Метод возвращает фильм по его идентификатору
+     * за один запрос к хранилищу.
      *
      * @param id идентификатор фильма.
      * @return Фильм, принадлежащий идентификатору.
+     * @throws ru.yandex.practicum.filmorate.exception.UnknownFilmException
+     *         если фильм не найден.
      */
-    Film getFilmByIdWithoutGenresAndDirectors(Long id);
+    Film getFilmById(Long id);
 
     /**
      * Метод удаляет фильм из хранилища по его
@@ -73,7 +127,7 @@ public interface FilmStorage {
      * @return Список фильмов, связанный с режиссёром
      * и отсортированный по параметру сортировки.
      */
-    List<Film> getFilmsByDirectorWithoutGenresAndDirectors(Long directorId, String sortBy);
+    List<Film> getFilmsByDirector(Long directorId, String sortBy);
 
     /**
      * Метод возвращает список всех пар id пользователя и
@@ -84,84 +138,6 @@ public interface FilmStorage {
      */
     List<Map.Entry<Long, Long>> getEntriesUserIdLikedFilmId();
 
-    /**
-     * Метод возвращает список популярных
-     * (по количеству лайков) фильмов.
-     *
-     * @param count размер списка.
-     * @return Список популярных фильмов.
-     */
-    List<Film> getListPopularFilm(long count);
-
-    /**
-     * Метод возвращает список популярных
-     * (по количеству лайков) фильмов,
-     * отобранных по году.
-     *
-     * @param count размер списка.
-     * @param year  год для выборки.
-     * @return Список популярных фильмов,
-     * отобранных по году.
-     */
-    List<Film> getListPopularFilmSortedByYear(int count, int year);
-
-    /**
-     * Метод возвращает список популярных
-     * (по количеству лайков) фильмов,
-     * отобранных по жанру.
-     *
-     * @param count   размер списка.
-     * @param genreId идентификатор жанра для выборки.
-     * @return Список популярных фильмов,
-     * отобранных по жанру.
-     */
-    List<Film> getListPopularFilmSortedByGenre(int count, long genreId);
-
-    /**
-     * Метод возвращает список популярных
-     * (по количеству лайков) фильмов,
-     * отобранных по жанру и году.
-     *
-     * @param count   размер списка.
-     * @param genreId идентификатор жанра
-     *                для выборки.
-     * @param year    год для выборки.
-     * @return Список популярных фильмов,
-     * отобранных по жанру и году.
-     */
-    List<Film> findPopularFilmSortedByGenreAndYear(int count, long genreId, int year);
-
-    /**
-     * Метод возвращает список общих понравившихся
-     * фильмов между пользователями.
-     *
-     * @param userId   идентификатор первого
-     *                 пользователя.
-     * @param friendId идентификатор второго
-     *                 пользователя.
-     * @return Список общих понравившихся фильмов,
-     * между пользователями.
-     */
-    List<Film> getCommonFilms(Long userId, Long friendId);
-
-    /**
-     * Метод возвращает список фильмов, найденных
-     * по названию.
-     *
-     * @param query текст для поиска.
-     * @return Список фильмов, найденных по названию.
-     */
-    List<Map.Entry<Long, String>> searchFilmsWithoutGenresAndDirectorsByTitle(String query);
-
-    /**
-     * Метод возвращает список фильмов, найденных
-     * по режиссёру.
-     *
-     * @param query текст для поиска.
-     * @return Список фильмов, найденных по режиссёру.
-     */
-    List<Map.Entry<Long, String>> searchFilmsWithoutGenresAndDirectorsByDirector(String query);
-
     /**
      * Метод проверяет наличие фильма
      * в хранилище.
@@ -196,4 +172,24 @@ public interface FilmStorage {
      * запрошенным id.
      */
     List<Film> getFilmsSortedByPopularity(List<Long> matchingIds);
+
+    /**
+     * Метод возвращает фильмы в порядке
+     * переданных идентификаторов. Отсутствующие
+     * в хранилище фильмы пропускаются.
+     *
+     * @param filmsId список id запрошенных фильмов.
+     * @return Список фильмов по запрошенным id.
+     */
+    List<Film> getFilmsByIds(List<Long> filmsId);
+
+    /**
+     * Метод возвращает те из переданных
+     * идентификаторов, фильмы с которыми
+     * есть в хранилище.
+     *
+     * @param filmsId идентификаторы фильмов.
+     * @return Идентификаторы существующих фильмов.
+     */
+    Set<Long> getExistingFilmsId(Collection<Long> filmsId);
 }
@@ -5,7 +5,6 @@ import ru.yandex.practicum.filmorate.model.Genre;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
-import java.util.Map;
 
 public interface GenreStorage {
     /**
@@ -29,25 +28,4 @@ public interface GenreStorage {
      * Метод парсит ответ БД в объект жанра.
      */
     Genre mapRowToGenre(ResultSet rs, int rowNum) throws SQLException;
-
-    /**
-     * Метод возвращает список жанров,
-     * принадлежащих фильму.
-     *
-     * @param id идентификатор фильма.
-     * @return Список жанров, принадлежащих
-     * фильму.
-     */
-    List<Genre> getGenresByFilmId(Long id);
-
-    /**
-     * Метод возвращает Map, где ключ -
-     * идентификатор фильма, а значение -
-     * список жанров, принадлежащих этому
-     * ключу.
-     *
-     * @return Map идентификаторов фильма и
-     * жанров им принадлежащих.
-     */
-    Map<Long, List<Genre>> getGenresByFilmsId();
 }
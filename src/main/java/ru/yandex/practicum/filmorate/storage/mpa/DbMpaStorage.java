@@ -3,13 +3,20 @@ package ru.yandex.practicum.filmorate.storage.mpa;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.HotQuery;
+import ru.yandex.practicum.filmorate.storage.HotQueryProvider;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 
 @Repository
-public class DbMpaStorage implements MpaStorage{
+public class DbMpaStorage implements MpaStorage, HotQueryProvider {
+
+    private static final String MPA_BY_ID_QUERY = "" +
+            "SELECT * " +
+            "FROM mpa " +
+            "WHERE mpa_id = ?";
 
     private final JdbcTemplate jdbcTemplate;
 
@@ -26,11 +33,12 @@ public class DbMpaStorage implements MpaStorage{
 
     @Override
     public Mpa getMpaById(Long id) {
-        String sqlQuery = "" +
-                "SELECT * " +
-                "FROM mpa " +
-                "WHERE mpa_id = ?";
-        return jdbcTemplate.queryForObject(sqlQuery, this::mapRowToMpa, id);
+        return jdbcTemplate.queryForObject(MPA_BY_ID_QUERY, this::mapRowToMpa, id);
+    }
+
+    @Override
+    public List<HotQuery> getHotQueries() {
+        return List.of(new HotQuery("mpa.byId", MPA_BY_ID_QUERY, 1L));
     }
 
     private Mpa mapRowToMpa(ResultSet rs, int rowNum) throws SQLException {
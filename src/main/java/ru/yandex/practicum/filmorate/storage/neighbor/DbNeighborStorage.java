@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.storage.neighbor;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Neighbor;
+import ru.yandex.practicum.filmorate.storage.HotQuery;
+import ru.yandex.practicum.filmorate.storage.HotQueryProvider;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+@Repository
+public class DbNeighborStorage implements NeighborStorage, HotQueryProvider {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String NEIGHBORS_QUERY = "" +
+            "SELECT neighbor_id, similarity " +
+            "FROM user_neighbors " +
+            "WHERE user_id = ? " +
+            "ORDER BY similarity DESC, neighbor_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DbNeighborStorage(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Neighbor> getNeighbors(Long userId) {
+        return jdbcTemplate.query(NEIGHBORS_QUERY, this::mapRowToNeighbor, userId);
+    }
+
+    @Override
+    @Transactional
+    public void saveNeighbors(Map<Long, List<Neighbor>> neighborsByUserId) {
+        String deleteQuery = "" +
+                "DELETE FROM user_neighbors " +
+                "WHERE user_id = ?";
+        jdbcTemplate.batchUpdate(deleteQuery, neighborsByUserId.keySet(), BATCH_SIZE,
+                (ps, userId) -> ps.setLong(1, userId));
+
+        List<Map.Entry<Long, Neighbor>> rows = new ArrayList<>();
+        neighborsByUserId.forEach((userId, neighbors) -> {
+            for (Neighbor neighbor : neighbors) {
+                rows.add(new AbstractMap.SimpleEntry<>(userId, neighbor));
+            }
+        });
+        String insertQuery = "" +
+                "INSERT INTO user_neighbors (user_id, neighbor_id, similarity) " +
+                "SELECT u.user_id, n.user_id, ? " +
+                "FROM users u " +
+                "JOIN users n ON n.user_id = ? " +
+                "WHERE u.user_id = ?";
+        jdbcTemplate.batchUpdate(insertQuery, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setDouble(1, row.getValue().getSimilarity());
+            ps.setLong(2, row.getValue().getUserId());
+            ps.setLong(3, row.getKey());
+        });
+    }
+
+    @Override
+    public List<HotQuery> getHotQueries() {
+        return List.of(new HotQuery("neighbors.byUser", NEIGHBORS_QUERY, 1L));
+    }
+
+    private Neighbor mapRowToNeighbor(ResultSet rs, int rowNum) throws SQLException {
+        return new Neighbor(rs.getLong("neighbor_id"), rs.getDouble("similarity"));
+    }
+}
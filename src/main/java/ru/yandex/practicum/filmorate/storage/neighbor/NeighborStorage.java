@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.storage.neighbor;
+
+import ru.yandex.practicum.filmorate.model.Neighbor;
+
+import java.util.List;
+import java.util.Map;
+
+public interface NeighborStorage {
+    /**
+     * Метод возвращает сохранённых ближайших
+     * соседей пользователя по убыванию сходства.
+     *
+     * @param userId идентификатор пользователя.
+     * @return Список соседей пользователя.
+     */
+    List<Neighbor> getNeighbors(Long userId);
+
+    /**
+     * Метод заменяет сохранённых соседей
+     * переданных пользователей.
+     *
+     * @param neighborsByUserId соседи по идентификатору
+     *                          пользователя.
+     */
+    void saveNeighbors(Map<Long, List<Neighbor>> neighborsByUserId);
+}
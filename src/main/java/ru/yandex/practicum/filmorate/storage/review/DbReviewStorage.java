@@ -5,8 +5,11 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.UnknownReviewException;
 import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.HotQuery;
+import ru.yandex.practicum.filmorate.storage.HotQueryProvider;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -14,7 +17,39 @@ import java.sql.SQLException;
 import java.util.*;
 
 @Repository
-public class DbReviewStorage implements ReviewStorage {
+public class DbReviewStorage implements ReviewStorage, HotQueryProvider {
+
+    /**
+     * Полезность хранится в столбце reviews.useful и меняется
+     * в одной транзакции с оценками, поэтому лучшие отзывы
+     * фильма читаются по индексу (film_id, useful DESC, review_id).
+     * Столбец film_id стоит в начале ORDER BY, иначе H2 не видит
+     * совпадения порядка с индексом и сортирует все отзывы фильма.
+     * Условие страницы записано через useful <= ?, чтобы индекс
+     * читался с позиции курсора, а не с начала с фильтрацией.
+     */
+    private static final String REVIEWS_SELECT = "" +
+            "SELECT r.review_id, r.film_id, r.user_id, r.content, r.is_positive, r.useful " +
+            "FROM reviews AS r";
+    private static final String REVIEW_BY_ID_QUERY = REVIEWS_SELECT + " " +
+            "WHERE r.review_id = ?";
+    private static final String REVIEWS_PAGE_KEYSET = "" +
+            "r.useful <= ? " +
+            "  AND NOT (r.useful = ? AND r.review_id <= ?) ";
+    private static final String REVIEWS_PAGE_QUERY = REVIEWS_SELECT + " " +
+            "WHERE " + REVIEWS_PAGE_KEYSET +
+            "ORDER BY r.useful DESC, r.review_id " +
+            "LIMIT ?";
+    private static final String FILM_REVIEWS_PAGE_QUERY = REVIEWS_SELECT + " " +
+            "WHERE r.film_id = ? " +
+            "  AND " + REVIEWS_PAGE_KEYSET +
+            "ORDER BY r.film_id, r.useful DESC, r.review_id " +
+            "LIMIT ?";
+    private static final String REVIEW_RATING_QUERY = "" +
+            "SELECT is_positive " +
+            "FROM reviews_rating " +
+            "WHERE review_id = ? AND user_id = ? " +
+            "FOR UPDATE";
 
     private final JdbcTemplate jdbcTemplate;
 
@@ -41,21 +76,7 @@ public class DbReviewStorage implements ReviewStorage {
 
     @Override
     public Review getReviewById(Long id) {
-        String sqlQuery = "" +
-                "SELECT r.review_id, r.film_id, r.user_id, r.content, r.is_positive, " +
-                "       COUNT(rrp.review_id) - COUNT(rrn.review_id) AS useful " +
-                "FROM reviews AS r " +
-                "LEFT JOIN " +
-                "   (SELECT review_id " +
-                "    FROM reviews_rating " +
-                "    WHERE is_positive = true) AS rrp ON r.review_id = rrp.review_id " +
-                "LEFT JOIN " +
-                "   (SELECT review_id " +
-                "    FROM reviews_rating " +
-                "    WHERE is_positive = false) AS rrn ON r.review_id = rrn.review_id " +
-                "WHERE r.review_id = ? " +
-                "GROUP BY r.review_id, r.film_id, r.user_id, r.content, r.is_positive";
-        return jdbcTemplate.queryForObject(sqlQuery, this::mapRowToReview, id);
+        return jdbcTemplate.queryForObject(REVIEW_BY_ID_QUERY, this::mapRowToReview, id);
     }
 
     @Override
@@ -83,51 +104,62 @@ public class DbReviewStorage implements ReviewStorage {
     }
 
     @Override
-    public List<Review> getReviewsByFilmIdOrAll(Long filmId, Long count) {
-        String sqlQuery = "" +
-                "SELECT r.review_id, r.film_id, r.user_id, r.content, r.is_positive, " +
-                "       COUNT(rrp.review_id) - COUNT(rrn.review_id) AS useful " +
-                "FROM reviews AS r " +
-                "LEFT JOIN " +
-                "   (SELECT review_id " +
-                "    FROM reviews_rating " +
-                "    WHERE is_positive = true) AS rrp ON r.review_id = rrp.review_id " +
-                "LEFT JOIN " +
-                "   (SELECT review_id " +
-                "    FROM reviews_rating " +
-                "    WHERE is_positive = false) AS rrn ON r.review_id = rrn.review_id ";
+    public List<Review> getReviewsPage(Long filmId, long afterUseful, long afterId, int limit) {
         if (filmId != null && filmId > 0) {
-            sqlQuery = sqlQuery + " WHERE film_id = " + filmId;
+            return jdbcTemplate.query(FILM_REVIEWS_PAGE_QUERY, this::mapRowToReview,
+                    filmId, afterUseful, afterUseful, afterId, limit);
         }
-        sqlQuery = sqlQuery + "" +
-                "GROUP BY r.review_id, r.film_id, r.user_id, r.content, r.is_positive " +
-                "ORDER BY useful DESC " +
-                "LIMIT ?";
-        return jdbcTemplate.query(sqlQuery, this::mapRowToReview, count);
+        return jdbcTemplate.query(REVIEWS_PAGE_QUERY, this::mapRowToReview, afterUseful, afterUseful, afterId, limit);
     }
 
     @Override
+    @Transactional
     public void addLikeToReview(Long id, Long userId) {
         String sqlQuery = "" +
                 "INSERT INTO reviews_rating (review_id, user_id, is_positive) " +
                 "VALUES (?, ?, true)";
         jdbcTemplate.update(sqlQuery, id, userId);
+        updateUseful(id, 1);
     }
 
     @Override
+    @Transactional
     public void addDislikeToReview(Long id, Long userId) {
         String sqlQuery = "" +
                 "INSERT INTO reviews_rating (review_id, user_id, is_positive) " +
                 "VALUES (?, ?, false)";
         jdbcTemplate.update(sqlQuery, id, userId);
+        updateUseful(id, -1);
     }
 
     @Override
+    @Transactional
     public void deleteLikeOrDislikeToReview(Long id, Long userId) {
+        List<Boolean> ratings = jdbcTemplate.queryForList(REVIEW_RATING_QUERY, Boolean.class, id, userId);
+        if (ratings.isEmpty()) {
+            return;
+        }
         String sqlQuery = "" +
                 "DELETE FROM reviews_rating " +
                 "WHERE review_id = ? AND user_id = ?";
         jdbcTemplate.update(sqlQuery, id, userId);
+        updateUseful(id, ratings.get(0) ? -1 : 1);
+    }
+
+    @Override
+    @Transactional
+    public int reconcileUsefulScores() {
+        String sqlQuery = "" +
+                "UPDATE reviews AS r " +
+                "SET useful = " +
+                "   (SELECT COALESCE(SUM(CASE WHEN rr.is_positive THEN 1 ELSE -1 END), 0) " +
+                "    FROM reviews_rating AS rr " +
+                "    WHERE rr.review_id = r.review_id) " +
+                "WHERE useful <> " +
+                "   (SELECT COALESCE(SUM(CASE WHEN rr.is_positive THEN 1 ELSE -1 END), 0) " +
+                "    FROM reviews_rating AS rr " +
+                "    WHERE rr.review_id = r.review_id)";
+        return jdbcTemplate.update(sqlQuery);
     }
 
     @Override
@@ -139,6 +171,23 @@ public class DbReviewStorage implements ReviewStorage {
         }
     }
 
+    @Override
+    public List<HotQuery> getHotQueries() {
+        return List.of(
+                new HotQuery("reviews.byId", REVIEW_BY_ID_QUERY, 1L),
+                new HotQuery("reviews.page", REVIEWS_PAGE_QUERY, Long.MAX_VALUE, Long.MAX_VALUE, 0L, 10),
+                new HotQuery("reviews.filmPage", FILM_REVIEWS_PAGE_QUERY, 1L, Long.MAX_VALUE, Long.MAX_VALUE, 0L, 10),
+                new HotQuery("reviews.rating", REVIEW_RATING_QUERY, 1L, 1L));
+    }
+
+    private void updateUseful(Long id, int delta) {
+        String sqlQuery = "" +
+                "UPDATE reviews " +
+                "SET useful = useful + ? " +
+                "WHERE review_id = ?";
+        jdbcTemplate.update(sqlQuery, delta, id);
+    }
+
     private Review mapRowToReview(ResultSet rs, int rowNum) throws SQLException {
         return new Review(
                 rs.getLong("review_id"),
@@ -41,17 +41,22 @@ public interface ReviewStorage {
     Review updateReviewById(Review review);
 
     /**
-     * Метод возвращает список отсортированных по
+     * Метод возвращает страницу отсортированных по
      * полезности отзывов для всех фильмов или для
      * конкретного фильма, в случае если передан
-     * идентификатор фильма.
+     * идентификатор фильма. Отзывы с равной полезностью
+     * упорядочены по идентификатору.
      *
-     * @param filmId идентификатор фильма.
-     * @param count  размер списка.
-     * @return Список популярных по полезности отзывов
+     * @param filmId      идентификатор фильма или null.
+     * @param afterUseful полезность последнего отзыва
+     *                    предыдущей страницы.
+     * @param afterId     идентификатор последнего отзыва
+     *                    предыдущей страницы.
+     * @param limit       размер страницы.
+     * @return Страница популярных по полезности отзывов
      * для разных фильмов или для конкретного фильма.
      */
-    List<Review> getReviewsByFilmIdOrAll(Long filmId, Long count);
+    List<Review> getReviewsPage(Long filmId, long afterUseful, long afterId, int limit);
 
     /**
      * Метод добавляет лайк отзыву.
@@ -81,6 +86,14 @@ public interface ReviewStorage {
      */
     void deleteLikeOrDislikeToReview(Long id, Long userId);
 
+    /**
+     * Метод сверяет сохранённую полезность отзывов
+     * с их оценками и исправляет расхождения.
+     *
+     * @return Количество исправленных отзывов.
+     */
+    int reconcileUsefulScores();
+
     /**
      * Метод проверяет наличие отзыва
      * в хранилище.
@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.storage.timeline;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.HotQuery;
+import ru.yandex.practicum.filmorate.storage.HotQueryProvider;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+@Repository
+public class DbTimelineStorage implements TimelineStorage, HotQueryProvider {
+
+    private static final int BATCH_SIZE = 500;
+    /**
+     * Страница читается по индексу (owner_id, event_id DESC),
+     * поэтому owner_id стоит в начале ORDER BY.
+     */
+    private static final String TIMELINE_PAGE_QUERY = "" +
+            "SELECT f.event_id, f.user_id, f.entity_id, f.event_type, f.operation, f.event_time " +
+            "FROM users_timeline t " +
+            "JOIN users_feed f ON f.event_id = t.event_id " +
+            "WHERE t.owner_id = ? " +
+            "  AND t.event_id < ? " +
+            "ORDER BY t.owner_id, t.event_id DESC " +
+            "LIMIT ?";
+    private static final String TIMELINE_QUERY = "" +
+            "SELECT f.event_id, f.user_id, f.entity_id, f.event_type, f.operation, f.event_time " +
+            "FROM users_timeline t " +
+            "JOIN users_feed f ON f.event_id = t.event_id " +
+            "WHERE t.owner_id = ? " +
+            "ORDER BY t.event_id DESC";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DbTimelineStorage(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void addEvents(Map<Long, List<Long>> eventsIdByOwnerId) {
+        List<long[]> rows = new ArrayList<>();
+        eventsIdByOwnerId.forEach((ownerId, eventsId) -> {
+            for (Long eventId : eventsId) {
+                rows.add(new long[]{ownerId, eventId});
+            }
+        });
+        String sqlQuery = "" +
+                "MERGE INTO users_timeline (owner_id, event_id) " +
+                "KEY (owner_id, event_id) " +
+                "SELECT u.user_id, ? " +
+                "FROM users u " +
+                "WHERE u.user_id = ?";
+        jdbcTemplate.batchUpdate(sqlQuery, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setLong(1, row[1]);
+            ps.setLong(2, row[0]);
+        });
+    }
+
+    @Override
+    public void addFriendEvents(Long ownerId, Long friendId, int limit) {
+        String sqlQuery = "" +
+                "MERGE INTO users_timeline (owner_id, event_id) " +
+                "KEY (owner_id, event_id) " +
+                "SELECT ?, event_id " +
+                "FROM users_feed " +
+                "WHERE user_id = ? " +
+                "ORDER BY event_id DESC " +
+                "LIMIT ?";
+        jdbcTemplate.update(sqlQuery, ownerId, friendId, limit);
+    }
+
+    @Override
+    public void removeFriendEvents(Long ownerId, Long friendId) {
+        String sqlQuery = "" +
+                "DELETE FROM users_timeline " +
+                "WHERE owner_id = ? " +
+                "  AND event_id IN (SELECT event_id FROM users_feed WHERE user_id = ?)";
+        jdbcTemplate.update(sqlQuery, ownerId, friendId);
+    }
+
+    @Override
+    public List<Event> getTimelinePage(Long ownerId, Long beforeId, int limit) {
+        return jdbcTemplate.query(TIMELINE_PAGE_QUERY, this::mapRowToEvent, ownerId, beforeId, limit);
+    }
+
+    @Override
+    public List<Event> getTimeline(Long ownerId) {
+        return jdbcTemplate.query(TIMELINE_QUERY, this::mapRowToEvent, ownerId);
+    }
+
+    @Override
+    public Set<Long> getReadTimeAuthorsId() {
+        String sqlQuery = "" +
+                "SELECT user_id " +
+                "FROM users_timeline_read_time";
+        return new HashSet<>(jdbcTemplate.queryForList(sqlQuery, Long.class));
+    }
+
+    @Override
+    public void addReadTimeAuthor(Long userId) {
+        String sqlQuery = "" +
+                "MERGE INTO users_timeline_read_time (user_id) " +
+                "KEY (user_id) " +
+                "SELECT user_id " +
+                "FROM users " +
+                "WHERE user_id = ?";
+        jdbcTemplate.update(sqlQuery, userId);
+    }
+
+    @Override
+    public int trimTimelines(int size) {
+        String sqlQuery = "" +
+                "SELECT owner_id " +
+                "FROM users_timeline " +
+                "GROUP BY owner_id " +
+                "HAVING COUNT(*) > ?";
+        List<Long> ownersId = jdbcTemplate.queryForList(sqlQuery, Long.class, size);
+        sqlQuery = "" +
+                "DELETE FROM users_timeline " +
+                "WHERE owner_id = ? " +
+                "  AND event_id <= (SELECT event_id " +
+                "                   FROM users_timeline " +
+                "                   WHERE owner_id = ? " +
+                "                   ORDER BY event_id DESC " +
+                "                   LIMIT 1 OFFSET ?)";
+        int removed = 0;
+        for (Long ownerId : ownersId) {
+            removed += jdbcTemplate.update(sqlQuery, ownerId, ownerId, size);
+        }
+        return removed;
+    }
+
+    @Override
+    public List<HotQuery> getHotQueries() {
+        return List.of(
+                new HotQuery("timeline.byOwner", TIMELINE_QUERY, 1L),
+                new HotQuery("timeline.page", TIMELINE_PAGE_QUERY, 1L, Long.MAX_VALUE, 100));
+    }
+
+    private Event mapRowToEvent(ResultSet rs, int rowNum) throws SQLException {
+        return new Event(
+                rs.getLong("event_id"),
+                rs.getLong("user_id"),
+                rs.getLong("entity_id"),
+                rs.getString("event_type"),
+                rs.getString("operation"),
+                new Date(rs.getLong("event_time"))
+        );
+    }
+}
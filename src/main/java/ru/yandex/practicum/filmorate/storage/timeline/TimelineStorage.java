@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.storage.timeline;
+
+import ru.yandex.practicum.filmorate.model.Event;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface TimelineStorage {
+    /**
+     * Метод добавляет события в ленты друзей
+     * указанных пользователей.
+     *
+     * @param eventsIdByOwnerId идентификаторы событий
+     *                          по идентификатору владельца ленты.
+     */
+    void addEvents(Map<Long, List<Long>> eventsIdByOwnerId);
+
+    /**
+     * Метод добавляет в ленту друзей пользователя
+     * последние события его нового друга.
+     *
+     * @param ownerId  идентификатор владельца ленты.
+     * @param friendId идентификатор друга.
+     * @param limit    наибольшее число событий.
+     */
+    void addFriendEvents(Long ownerId, Long friendId, int limit);
+
+    /**
+     * Метод удаляет из ленты друзей пользователя
+     * события бывшего друга.
+     *
+     * @param ownerId  идентификатор владельца ленты.
+     * @param friendId идентификатор бывшего друга.
+     */
+    void removeFriendEvents(Long ownerId, Long friendId);
+
+    /**
+     * Метод возвращает страницу ленты друзей пользователя,
+     * предшествующих событию с данным идентификатором,
+     * в порядке убывания идентификатора.
+     *
+     * @param ownerId  идентификатор владельца ленты.
+     * @param beforeId идентификатор события, до которого
+     *                 выбираются события.
+     * @param limit    размер страницы.
+     * @return Страница событий друзей.
+     */
+    List<Event> getTimelinePage(Long ownerId, Long beforeId, int limit);
+
+    /**
+     * Метод возвращает все события ленты друзей
+     * пользователя в порядке убывания идентификатора.
+     *
+     * @param ownerId идентификатор владельца ленты.
+     * @return События друзей.
+     */
+    List<Event> getTimeline(Long ownerId);
+
+    /**
+     * Метод возвращает пользователей, события которых
+     * добавляются в ленты друзей при чтении.
+     *
+     * @return Идентификаторы пользователей.
+     */
+    Set<Long> getReadTimeAuthorsId();
+
+    /**
+     * Метод переводит пользователя в режим, в котором его
+     * события добавляются в ленты друзей при чтении.
+     *
+     * @param userId идентификатор пользователя.
+     */
+    void addReadTimeAuthor(Long userId);
+
+    /**
+     * Метод удаляет из лент друзей события сверх
+     * указанного размера, начиная с самых старых.
+     *
+     * @param size наибольший размер ленты.
+     * @return Количество удалённых записей.
+     */
+    int trimTimelines(int size);
+}
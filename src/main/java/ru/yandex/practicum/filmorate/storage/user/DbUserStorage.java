@@ -1,21 +1,46 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
-import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.ExistsException;
 import ru.yandex.practicum.filmorate.exception.UnknownUserException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.HotQuery;
+import ru.yandex.practicum.filmorate.storage.HotQueryProvider;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Repository
-public class DbUserStorage implements UserStorage {
+public class DbUserStorage implements UserStorage, HotQueryProvider {
+
+    private static final int STREAM_PAGE_SIZE = 500;
+    private static final String USER_BY_ID_QUERY = "" +
+            "SELECT user_id, name, email, login, birthday " +
+            "FROM users " +
+            "WHERE user_id = ?";
+    private static final String USERS_PAGE_QUERY = "" +
+            "SELECT user_id, name, email, login, birthday " +
+            "FROM users " +
+            "WHERE user_id > ? " +
+            "ORDER BY user_id " +
+            "LIMIT ?";
+    private static final String FILMS_ID_LIKED_BY_USER_QUERY = "" +
+            "SELECT film_id " +
+            "FROM likes " +
+            "WHERE user_id = ? " +
+            "FOR UPDATE";
+    private static final String USER_EXISTS_QUERY = "" +
+            "SELECT EXISTS " +
+            "  (SELECT user_id " +
+            "   FROM users " +
+            "   WHERE user_id = ?)";
 
     private final JdbcTemplate jdbcTemplate;
 
@@ -64,37 +89,57 @@ public class DbUserStorage implements UserStorage {
     }
 
     @Override
-    public List<User> getCommonFriends(Long id, Long friendId) {
+    public void streamUsers(Consumer<User> consumer) {
+        long afterId = 0;
+        List<User> users;
+        do {
+            users = getUsersPage(afterId, STREAM_PAGE_SIZE);
+            users.forEach(consumer);
+            if (!users.isEmpty()) {
+                afterId = users.get(users.size() - 1).getId();
+            }
+        } while (users.size() == STREAM_PAGE_SIZE);
+    }
+
+    @Override
+    public List<User> getUsersPage(Long afterId, int limit) {
+        return jdbcTemplate.query(USERS_PAGE_QUERY, this::mapRowToUser, afterId, limit);
+    }
+
+    @Override
+    public List<User> getUsersByIds(List<Long> usersId) {
+        if (usersId.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : jdbcTemplate.query(buildUsersByIdsQuery(usersId.size()), this::mapRowToUser,
+                usersId.toArray())) {
+            usersById.put(user.getId(), user);
+        }
+        List<User> users = new ArrayList<>();
+        for (Long userId : usersId) {
+            if (usersById.containsKey(userId)) {
+                users.add(usersById.get(userId));
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public List<Map.Entry<Long, Long>> getEntriesUserIdFriendId() {
         String sqlQuery = "" +
-                "SELECT user_id, name, email, login, birthday " +
-                "FROM users " +
-                "WHERE user_id IN " +
-                "   (SELECT friend_user_id " +
-                "    FROM friends " +
-                "    WHERE ? = user_id) AND user_id IN " +
-                "   (SELECT friend_user_id " +
-                "    FROM friends " +
-                "    WHERE ? = user_id)";
-        return jdbcTemplate.query(sqlQuery, this::mapRowToUser, id, friendId);
+                "SELECT user_id, friend_user_id " +
+                "FROM friends";
+        return jdbcTemplate.query(sqlQuery, this::mapRowToMapEntry);
     }
 
     @Override
     public User getUserById(Long id) {
-        String sqlQuery = "" +
-                "SELECT user_id, name, email, login, birthday " +
-                "FROM users " +
-                "WHERE user_id = ?";
-        User user = jdbcTemplate.queryForObject(sqlQuery, this::mapRowToUser, id);
-        sqlQuery = "" +
-                "SELECT user_id, name, email, login, birthday " +
-                "FROM users " +
-                "WHERE user_id IN " +
-                "   (SELECT friend_user_id " +
-                "    FROM friends " +
-                "    WHERE user_id = ?)";
-        List<User> friendsId = jdbcTemplate.query(sqlQuery, this::mapRowToUser, id);
-        user.getFriends().addAll(friendsId);
-        return user;
+        List<User> users = jdbcTemplate.query(USER_BY_ID_QUERY, this::mapRowToUser, id);
+        if (users.isEmpty()) {
+            throw new UnknownUserException(String.format("User with id: %d is not found", id));
+        }
+        return users.get(0);
     }
 
     @Override
@@ -114,34 +159,81 @@ public class DbUserStorage implements UserStorage {
     }
 
     @Override
-    public void removeUserById(Long id) {
+    @Transactional
+    public List<Long> removeUserById(Long id) {
+        List<Long> likedFilmsId = jdbcTemplate.queryForList(FILMS_ID_LIKED_BY_USER_QUERY, Long.class, id);
         String sqlQuery = "" +
+                "UPDATE films " +
+                "SET like_count = like_count - 1 " +
+                "WHERE film_id = ?";
+        jdbcTemplate.batchUpdate(sqlQuery, likedFilmsId, likedFilmsId.size(),
+                (ps, filmId) -> ps.setLong(1, filmId));
+        sqlQuery = "" +
+                "UPDATE reviews AS r " +
+                "SET useful = useful - " +
+                "   (SELECT CASE WHEN rr.is_positive THEN 1 ELSE -1 END " +
+                "    FROM reviews_rating AS rr " +
+                "    WHERE rr.review_id = r.review_id AND rr.user_id = ?) " +
+                "WHERE review_id IN " +
+                "   (SELECT review_id " +
+                "    FROM reviews_rating " +
+                "    WHERE user_id = ?)";
+        jdbcTemplate.update(sqlQuery, id, id);
+        sqlQuery = "" +
                 "DELETE FROM users " +
                 "WHERE user_id = ?";
         jdbcTemplate.update(sqlQuery, id);
+        return likedFilmsId;
     }
 
     @Override
     public void checkUserExistsById(Long id) {
-        try {
-            getUserById(id);
-        } catch (DataAccessException e) {
-            throw new UnknownUserException(String.format("User with id: %d is not found", id));
+        jdbcTemplate.query(USER_EXISTS_QUERY, (rs) -> {
+            if (!rs.getBoolean(1)) throw new UnknownUserException(String.format("User with id: %d is not found", id));
+        }, id);
+    }
+
+    @Override
+    public Set<Long> getExistingUsersId(Collection<Long> usersId) {
+        if (usersId.isEmpty()) {
+            return new HashSet<>();
         }
+        return new HashSet<>(jdbcTemplate.queryForList(buildExistingUsersIdQuery(usersId.size()), Long.class,
+                usersId.toArray()));
     }
 
     @Override
     public void checkUserNotExistById(Long id) {
-        String sqlQuery = "" +
-                "SELECT EXISTS " +
-                "  (SELECT user_id " +
-                "   FROM users " +
-                "   WHERE user_id = ?)";
-        jdbcTemplate.query(sqlQuery, (rs) -> {
+        jdbcTemplate.query(USER_EXISTS_QUERY, (rs) -> {
             if (rs.getBoolean(1)) throw new ExistsException("The user has been already registered");
         }, id);
     }
 
+    @Override
+    public List<HotQuery> getHotQueries() {
+        return List.of(
+                new HotQuery("users.byId", USER_BY_ID_QUERY, 1L),
+                new HotQuery("users.page", USERS_PAGE_QUERY, 0L, 100),
+                new HotQuery("users.byIds", buildUsersByIdsQuery(3), 1L, 2L, 3L),
+                new HotQuery("users.exists", USER_EXISTS_QUERY, 1L),
+                new HotQuery("users.existingIds", buildExistingUsersIdQuery(3), 1L, 2L, 3L),
+                new HotQuery("likes.filmsIdByUser", FILMS_ID_LIKED_BY_USER_QUERY, 1L));
+    }
+
+    private static String buildUsersByIdsQuery(int count) {
+        return String.format("" +
+                "SELECT user_id, name, email, login, birthday " +
+                "FROM users " +
+                "WHERE user_id IN (%s)", String.join(",", Collections.nCopies(count, "?")));
+    }
+
+    private static String buildExistingUsersIdQuery(int count) {
+        return String.format("" +
+                "SELECT user_id " +
+                "FROM users " +
+                "WHERE user_id IN (%s)", String.join(",", Collections.nCopies(count, "?")));
+    }
+
     private User mapRowToUser(ResultSet rs, int rowNum) throws SQLException {
         return new User(
                 rs.getLong("user_id"),
@@ -151,4 +243,10 @@ public class DbUserStorage implements UserStorage {
                 rs.getDate("birthday")
         );
     }
+
+    private Map.Entry<Long, Long> mapRowToMapEntry(ResultSet rs, int rowNum) throws SQLException {
+        Long userId = rs.getLong("user_id");
+        Long friendId = rs.getLong("friend_user_id");
+        return new AbstractMap.SimpleEntry<>(userId, friendId);
+    }
 }
@@ -2,7 +2,11 @@ package ru.yandex.practicum.filmorate.storage.user;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserStorage {
     /**
@@ -29,9 +33,29 @@ public interface UserStorage {
      */
     List<User> getUsers();
 
+    /**
+     * Метод передаёт потребителю всех пользователей
+     * по одному, читая их из хранилища страницами
+     * по идентификатору, без накопления списка в памяти.
+     *
+     * @param consumer потребитель пользователей.
+     */
+    void streamUsers(Consumer<User> consumer);
+
+    /**
+     * Метод возвращает страницу пользователей,
+     * упорядоченных по идентификатору.
+     *
+     * @param afterId идентификатор, после которого
+     *                начинается страница.
+     * @param limit   размер страницы.
+     * @return Страница пользователей.
+     */
+    List<User> getUsersPage(Long afterId, int limit);
+
     /**
      * Метод возвращает пользователя из хранилища
-     * по его идентификатору.
+     * по его идентификатору без списка друзей.
      *
      * @param id идентификатор пользователя.
      * @return Пользователь, принадлежащий
@@ -59,25 +83,33 @@ public interface UserStorage {
     void removeFriend(Long id, Long friendId);
 
     /**
-     * Метод возвращает список общих друзей
-     * между двумя пользователями.
+     * Метод возвращает пользователей в порядке
+     * переданных идентификаторов. Отсутствующие
+     * в хранилище пользователи пропускаются.
      *
-     * @param id       идентификатор одного
-     *                 пользователя.
-     * @param friendId идентификатор другого
-     *                 пользователя.
-     * @return Список общих друзей, между двумя
-     * пользователями.
+     * @param usersId список id запрошенных пользователей.
+     * @return Список пользователей по запрошенным id.
      */
-    List<User> getCommonFriends(Long id, Long friendId);
+    List<User> getUsersByIds(List<Long> usersId);
+
+    /**
+     * Метод возвращает список всех пар id пользователя
+     * и id пользователя, добавленного им в друзья.
+     *
+     * @return Список пар id пользователя и id друга.
+     */
+    List<Map.Entry<Long, Long>> getEntriesUserIdFriendId();
 
     /**
      * Метод удаляет пользователя
-     * по его идентификатору.
+     * по его идентификатору и уменьшает счётчики
+     * лайков фильмов, которые ему понравились.
      *
      * @param id идентификатор пользователя.
+     * @return Идентификаторы фильмов, счётчики лайков
+     * которых уменьшены.
      */
-    void removeUserById(Long id);
+    List<Long> removeUserById(Long id);
 
     /**
      * Метод проверяет наличие пользователя
@@ -94,4 +126,14 @@ public interface UserStorage {
      * @param id идентификатор пользователя.
      */
     void checkUserNotExistById(Long id);
+
+    /**
+     * Метод возвращает те из переданных
+     * идентификаторов, пользователи с которыми
+     * есть в хранилище.
+     *
+     * @param usersId идентификаторы пользователей.
+     * @return Идентификаторы существующих пользователей.
+     */
+    Set<Long> getExistingUsersId(Collection<Long> usersId);
 }
@@ -30,4 +30,16 @@ public class Validator {
                     "title; director, title,director; director,title");
         }
     }
+
+    public static void validatePageLimit(int limit, int maxLimit) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new ValidationException(String.format("The page limit must be between 1 and %d", maxLimit));
+        }
+    }
+
+    public static void validateCount(int count, int maxCount) {
+        if (count < 1 || count > maxCount) {
+            throw new ValidationException(String.format("The count must be between 1 and %d", maxCount));
+        }
+    }
 }
@@ -1,4 +1,8 @@
+DROP TABLE IF EXISTS users_timeline CASCADE;
+DROP TABLE IF EXISTS users_timeline_read_time CASCADE;
 DROP TABLE IF EXISTS users_feed CASCADE;
+DROP TABLE IF EXISTS users_feed_archive CASCADE;
+DROP TABLE IF EXISTS user_neighbors CASCADE;
 DROP TABLE IF EXISTS directors;
 DROP TABLE IF EXISTS director;
 DROP TABLE IF EXISTS films CASCADE;
@@ -30,9 +34,14 @@ CREATE TABLE IF NOT EXISTS films
     description  varchar(200) NOT NULL,
     release_date date         NOT NULL,
     duration     bigint       NOT NULL,
-    mpa_id       integer REFERENCES mpa (mpa_id) ON DELETE CASCADE
+    mpa_id       integer REFERENCES mpa (mpa_id) ON DELETE CASCADE,
+    like_count   bigint       NOT NULL DEFAULT 0
 );
 
+CREATE INDEX IF NOT EXISTS films_mpa_id_idx ON films (mpa_id);
+
+CREATE INDEX IF NOT EXISTS films_like_count_idx ON films (like_count DESC, film_id);
+
 CREATE TABLE IF NOT EXISTS genres
 (
     film_id  bigint REFERENCES films (film_id) ON DELETE CASCADE,
@@ -40,6 +49,8 @@ CREATE TABLE IF NOT EXISTS genres
     PRIMARY KEY (film_id, genre_id)
 );
 
+CREATE INDEX IF NOT EXISTS genres_genre_id_idx ON genres (genre_id, film_id);
+
 CREATE TABLE IF NOT EXISTS users
 (
     user_id  bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -57,6 +68,18 @@ CREATE TABLE IF NOT EXISTS likes
     PRIMARY KEY (film_id, user_id)
 );
 
+CREATE INDEX IF NOT EXISTS likes_user_id_idx ON likes (user_id, film_id);
+
+CREATE TABLE IF NOT EXISTS user_neighbors
+(
+    user_id     bigint NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
+    neighbor_id bigint NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
+    similarity  double precision NOT NULL,
+    PRIMARY KEY (user_id, neighbor_id)
+);
+
+CREATE INDEX IF NOT EXISTS user_neighbors_neighbor_id_idx ON user_neighbors (neighbor_id);
+
 
 CREATE TABLE IF NOT EXISTS reviews
 (
@@ -64,9 +87,14 @@ CREATE TABLE IF NOT EXISTS reviews
     film_id     bigint  NOT NULL REFERENCES films (film_id) ON DELETE CASCADE,
     user_id     bigint  NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
     content     text    NOT NULL,
-    is_positive boolean NOT NULL
+    is_positive boolean NOT NULL,
+    useful      bigint  NOT NULL DEFAULT 0
 );
 
+CREATE INDEX IF NOT EXISTS reviews_film_id_useful_idx ON reviews (film_id, useful DESC, review_id);
+CREATE INDEX IF NOT EXISTS reviews_useful_idx ON reviews (useful DESC, review_id);
+CREATE INDEX IF NOT EXISTS reviews_user_id_idx ON reviews (user_id);
+
 CREATE TABLE IF NOT EXISTS reviews_rating
 (
     review_id   bigint  NOT NULL REFERENCES reviews (review_id) ON DELETE CASCADE,
@@ -75,6 +103,9 @@ CREATE TABLE IF NOT EXISTS reviews_rating
     PRIMARY KEY (review_id, user_id)
 );
 
+CREATE INDEX IF NOT EXISTS reviews_rating_review_id_idx ON reviews_rating (review_id, is_positive);
+CREATE INDEX IF NOT EXISTS reviews_rating_user_id_idx ON reviews_rating (user_id);
+
 CREATE TABLE IF NOT EXISTS friends
 (
     friendship_request bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -82,6 +113,9 @@ CREATE TABLE IF NOT EXISTS friends
     friend_user_id     bigint REFERENCES users (user_id) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS friends_user_id_idx ON friends (user_id, friend_user_id);
+CREATE INDEX IF NOT EXISTS friends_friend_user_id_idx ON friends (friend_user_id);
+
 CREATE TABLE IF NOT EXISTS director
 (
     director_id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -95,6 +129,9 @@ CREATE TABLE IF NOT EXISTS directors
     film_id          bigint REFERENCES films (film_id) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS directors_film_id_idx ON directors (film_id, director_id);
+CREATE INDEX IF NOT EXISTS directors_director_id_idx ON directors (director_id, film_id);
+
 CREATE TABLE IF NOT EXISTS users_feed
 (
     event_id   bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -103,4 +140,36 @@ CREATE TABLE IF NOT EXISTS users_feed
     event_type text,
     operation  text,
     event_time bigint
+);
+
+CREATE INDEX IF NOT EXISTS users_feed_user_id_idx ON users_feed (user_id, event_time);
+CREATE INDEX IF NOT EXISTS users_feed_user_id_event_id_idx ON users_feed (user_id, event_id DESC);
+CREATE INDEX IF NOT EXISTS users_feed_user_id_event_id_asc_idx ON users_feed (user_id, event_id);
+CREATE INDEX IF NOT EXISTS users_feed_event_time_idx ON users_feed (event_time);
+
+CREATE TABLE IF NOT EXISTS users_feed_archive
+(
+    event_id   bigint PRIMARY KEY,
+    user_id    bigint REFERENCES users (user_id) ON DELETE CASCADE,
+    entity_id  bigint,
+    event_type text,
+    operation  text,
+    event_time bigint
+);
+
+CREATE INDEX IF NOT EXISTS users_feed_archive_user_id_idx ON users_feed_archive (user_id, event_id);
+
+CREATE TABLE IF NOT EXISTS users_timeline
+(
+    owner_id bigint REFERENCES users (user_id) ON DELETE CASCADE,
+    event_id bigint REFERENCES users_feed (event_id) ON DELETE CASCADE,
+    PRIMARY KEY (owner_id, event_id)
+);
+
+CREATE INDEX IF NOT EXISTS users_timeline_owner_id_event_id_idx ON users_timeline (owner_id, event_id DESC);
+CREATE INDEX IF NOT EXISTS users_timeline_event_id_idx ON users_timeline (event_id);
+
+CREATE TABLE IF NOT EXISTS users_timeline_read_time
+(
+    user_id bigint PRIMARY KEY REFERENCES users (user_id) ON DELETE CASCADE
 );
\ No newline at end of file
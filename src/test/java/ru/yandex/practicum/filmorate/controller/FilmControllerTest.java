@@ -2,14 +2,19 @@ package ru.yandex.practicum.filmorate.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import net.bytebuddy.utility.RandomString;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.index.IndexReloader;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
@@ -19,20 +24,31 @@ import java.sql.Date;
 import java.time.LocalDate;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
 @AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@Import(IndexReloader.class)
 class FilmControllerTest {
 
     @Autowired
     private ObjectMapper objectMapper;
     @Autowired
     private MockMvc mockMvc;
+    @Autowired
+    private IndexReloader indexReloader;
     private Film film;
 
+    @BeforeEach
+    void reloadIndexes() {
+        indexReloader.reloadAll();
+    }
+
     @Test
     @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
     void createFilm() throws Exception {
@@ -376,4 +392,195 @@ class FilmControllerTest {
                 .andExpect(jsonPath("$[1].id").value(2));
     }
 
-}
\ No newline at end of file
+    @Test
+    @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
+    void removeMissingLikeFilm() throws Exception {
+        postFilm(new Film("Name", "Description", Date.valueOf(LocalDate.of(2000, 1, 1)), 200L, new Mpa(1L, null)));
+        postUser(new User("mail@mail.ru", "Login", Date.valueOf(LocalDate.of(1946, 8, 20))));
+
+        mockMvc.perform(delete("/films/1/like/1"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(0));
+
+        mockMvc.perform(get("/users/1/feed"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+
+        mockMvc.perform(delete("/films/1/like/9"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
+    void addLikesBulk() throws Exception {
+        for (int i = 1; i <= 2; i++) {
+            postFilm(new Film("Name " + i, "Description", Date.valueOf(LocalDate.of(2000, 1, 1)), 200L,
+                    new Mpa(1L, null)));
+        }
+        postUser(new User("mail@mail.ru", "Login", Date.valueOf(LocalDate.of(1946, 8, 20))));
+        likeFilm(1L, 1L);
+
+        mockMvc.perform(post("/films/likes/bulk")
+                        .content("{\"filmId\": 1, \"userId\": 1}\n"
+                                + "{\"filmId\": 2, \"userId\": 1}\n"
+                                + "{\"filmId\": 2, \"userId\": 1}\n"
+                                + "{\"filmId\": 9, \"userId\": 1}\n"
+                                + "{\"filmId\": 1, \"userId\": 9}\n"
+                                + "{\"filmId\": 1}\n")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.added").value(1))
+                .andExpect(jsonPath("$.alreadyLiked").value(2))
+                .andExpect(jsonPath("$.unknownFilm").value(1))
+                .andExpect(jsonPath("$.unknownUser").value(1))
+                .andExpect(jsonPath("$.invalid").value(1))
+                .andExpect(jsonPath("$.total").value(6))
+                .andExpect(jsonPath("$.outcomes.length()").value(6))
+                .andExpect(jsonPath("$.outcomes[0]").value("ALREADY_LIKED"))
+                .andExpect(jsonPath("$.outcomes[1]").value("ADDED"))
+                .andExpect(jsonPath("$.outcomes[2]").value("ALREADY_LIKED"))
+                .andExpect(jsonPath("$.outcomes[3]").value("UNKNOWN_FILM"))
+                .andExpect(jsonPath("$.outcomes[4]").value("UNKNOWN_USER"))
+                .andExpect(jsonPath("$.outcomes[5]").value("INVALID"));
+
+        mockMvc.perform(get("/films/2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(1));
+
+        mockMvc.perform(get("/films/popular?count=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2));
+
+        mockMvc.perform(get("/users/1/feed"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].entityId").value(2))
+                .andExpect(jsonPath("$[1].eventType").value("LIKE"));
+    }
+
+    @Test
+    @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
+    void getSimilarFilms() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            postFilm(new Film("Name " + i, "Description", Date.valueOf(LocalDate.of(2000, 1, 1)), 200L,
+                    new Mpa(1L, null)));
+            postUser(new User("user" + i + "@mail.ru", "login" + i, Date.valueOf(LocalDate.of(1946, 8, 20))));
+        }
+        likeFilm(1L, 1L);
+        likeFilm(2L, 1L);
+        likeFilm(1L, 2L);
+        likeFilm(2L, 2L);
+        likeFilm(1L, 3L);
+        likeFilm(3L, 3L);
+
+        mockMvc.perform(get("/films/1/similar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[1].id").value(3));
+
+        mockMvc.perform(get("/films/1/similar").param("count", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(2));
+
+        mockMvc.perform(delete("/films/3/like/3"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/1/similar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(2));
+
+        mockMvc.perform(get("/films/9999/similar"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/films/1/similar").param("count", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
+    void getFilmsPage() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            postFilm(new Film("Name " + i, "Description", Date.valueOf(LocalDate.of(2000, 1, 1)), 200L,
+                    new Mpa(1L, null)));
+        }
+
+        mockMvc.perform(get("/films").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "2"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2));
+
+        mockMvc.perform(get("/films").param("after", "2").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[0].name").value("Name 3"));
+
+        mockMvc.perform(get("/films").param("after", "3"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$").isEmpty());
+
+        mockMvc.perform(get("/films").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/films").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
+    void streamFilms() throws Exception {
+        for (int i = 1; i <= 501; i++) {
+            film = new Film("Name " + i, "Description", Date.valueOf(LocalDate.of(2000, 1, 1)), 200L, new Mpa(1L, null));
+            if (i == 501) {
+                film.getGenres().add(new Genre(1L, null));
+            }
+            postFilm(film);
+        }
+
+        MvcResult result = mockMvc.perform(get("/films").param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(501))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[499].id").value(500))
+                .andExpect(jsonPath("$[500].id").value(501))
+                .andExpect(jsonPath("$[500].name").value("Name 501"))
+                .andExpect(jsonPath("$[500].genres[0].id").value(1));
+    }
+
+    private void postFilm(Film film) throws Exception {
+        mockMvc.perform(post("/films")
+                        .content(objectMapper.writeValueAsString(film))
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk());
+    }
+
+    private void postUser(User user) throws Exception {
+        mockMvc.perform(post("/users")
+                        .content(objectMapper.writeValueAsString(user))
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk());
+    }
+
+    private void likeFilm(Long filmId, Long userId) throws Exception {
+        mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isOk());
+    }
+}
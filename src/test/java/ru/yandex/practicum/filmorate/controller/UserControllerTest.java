@@ -1,37 +1,59 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.index.IndexReloader;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.TimelineFanOut;
 
 import java.sql.Date;
 import java.time.LocalDate;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
 @AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@Import(IndexReloader.class)
 class UserControllerTest {
 
     @Autowired
     private ObjectMapper objectMapper;
     @Autowired
     private MockMvc mockMvc;
+    @Autowired
+    private IndexReloader indexReloader;
+    @Autowired
+    private TimelineFanOut timelineFanOut;
     private User user;
 
+    @BeforeEach
+    void reloadIndexes() {
+        indexReloader.reloadAll();
+        timelineFanOut.reload();
+    }
+
     @Test
     @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
     void createUserWithoutName() throws Exception {
@@ -249,6 +271,25 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.birthday").value("1946-08-20"));
     }
 
+    @Test
+    @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
+    void getUserByIdWithFriends() throws Exception {
+        postUser(new User("user1@mail.ru", "login1", Date.valueOf(LocalDate.of(1946, 8, 20))));
+        postUser(new User("user2@mail.ru", "login2", Date.valueOf(LocalDate.of(1955, 3, 1))));
+        mockMvc.perform(put("/users/1/friends/2"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.friends.length()").value(1))
+                .andExpect(jsonPath("$.friends[0].id").value(2))
+                .andExpect(jsonPath("$.friends[0].login").value("login2"));
+
+        mockMvc.perform(get("/users/2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.friends").isEmpty());
+    }
+
     @Test
     @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
     void getUserByIncorrectId() throws Exception {
@@ -410,6 +451,182 @@ class UserControllerTest {
                 .andExpect(jsonPath("$[1].name").value("Name 4"));
     }
 
+    @Test
+    @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
+    void getUsersPage() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            postUser(new User("user" + i + "@mail.ru", "login" + i, Date.valueOf(LocalDate.of(1946, 8, 20))));
+        }
+
+        mockMvc.perform(get("/users").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "2"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2));
+
+        mockMvc.perform(get("/users").param("after", "2").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[0].login").value("login3"));
+
+        mockMvc.perform(get("/users").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
+    void streamUsers() throws Exception {
+        postUser(new User("user1@mail.ru", "login1", Date.valueOf(LocalDate.of(1946, 8, 20))));
+        postUser(new User("user2@mail.ru", "login2", Date.valueOf(LocalDate.of(1946, 8, 20))));
+
+        MvcResult result = mockMvc.perform(get("/users").param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].login").value("login1"))
+                .andExpect(jsonPath("$[1].id").value(2))
+                .andExpect(jsonPath("$[1].login").value("login2"));
+    }
+
+    @Test
+    @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
+    void getFeedPage() throws Exception {
+        postUser(new User("user1@mail.ru", "login1", Date.valueOf(LocalDate.of(1946, 8, 20))));
+        for (int i = 1; i <= 3; i++) {
+            postFilm(new Film("Name " + i, "Description", Date.valueOf(LocalDate.of(2000, 1, 1)), 200L,
+                    new Mpa(1L, null)));
+            likeFilm((long) i, 1L);
+        }
+
+        mockMvc.perform(get("/users/1/feed").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "2"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].eventId").value(2))
+                .andExpect(jsonPath("$[0].entityId").value(2))
+                .andExpect(jsonPath("$[1].eventId").value(3))
+                .andExpect(jsonPath("$[1].eventType").value("LIKE"));
+
+        mockMvc.perform(get("/users/1/feed").param("before", "2").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].eventId").value(1));
+
+        mockMvc.perform(get("/users/1/feed"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(3));
+
+        mockMvc.perform(get("/users/1/feed").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
+    void streamFeedFromLastEventId() throws Exception {
+        postUser(new User("user1@mail.ru", "login1", Date.valueOf(LocalDate.of(1946, 8, 20))));
+        for (int i = 1; i <= 3; i++) {
+            postFilm(new Film("Name " + i, "Description", Date.valueOf(LocalDate.of(2000, 1, 1)), 200L,
+                    new Mpa(1L, null)));
+            likeFilm((long) i, 1L);
+        }
+
+        MvcResult result = mockMvc.perform(get("/users/1/feed/stream").header("Last-Event-ID", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String content = awaitContent(result, "id:3");
+        assertFalse(content.contains("id:1\n"));
+        assertTrue(content.contains("id:2\n"));
+
+        mockMvc.perform(delete("/films/1/like/1"))
+                .andExpect(status().isOk());
+        content = awaitContent(result, "id:4");
+        assertTrue(content.contains("\"operation\":\"REMOVE\""));
+    }
+
+    @Test
+    @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
+    void getTimeline() throws Exception {
+        postUser(new User("user1@mail.ru", "login1", Date.valueOf(LocalDate.of(1946, 8, 20))));
+        postUser(new User("user2@mail.ru", "login2", Date.valueOf(LocalDate.of(1946, 8, 20))));
+        for (int i = 1; i <= 3; i++) {
+            postFilm(new Film("Name " + i, "Description", Date.valueOf(LocalDate.of(2000, 1, 1)), 200L,
+                    new Mpa(1L, null)));
+        }
+        mockMvc.perform(put("/users/1/friends/2"))
+                .andExpect(status().isOk());
+        likeFilm(1L, 2L);
+        likeFilm(2L, 2L);
+        likeFilm(3L, 2L);
+
+        mockMvc.perform(get("/users/1/timeline").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "3"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].eventId").value(4))
+                .andExpect(jsonPath("$[0].userId").value(2))
+                .andExpect(jsonPath("$[0].entityId").value(3))
+                .andExpect(jsonPath("$[1].eventId").value(3));
+
+        mockMvc.perform(get("/users/1/timeline").param("before", "3").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].eventId").value(2));
+
+        mockMvc.perform(get("/users/1/timeline"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].eventId").value(4))
+                .andExpect(jsonPath("$[2].eventId").value(2));
+
+        mockMvc.perform(get("/users/2/timeline"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
+    void getFriendSuggestions() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            postUser(new User("user" + i + "@mail.ru", "login" + i, Date.valueOf(LocalDate.of(1946, 8, 20))));
+        }
+        long[][] friendships = {{1, 2}, {1, 3}, {2, 4}, {3, 4}, {2, 5}};
+        for (long[] friendship : friendships) {
+            mockMvc.perform(put("/users/{id}/friends/{friendId}", friendship[0], friendship[1]))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/users/1/friends/suggestions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(4))
+                .andExpect(jsonPath("$[0].login").value("login4"))
+                .andExpect(jsonPath("$[1].id").value(5));
+
+        mockMvc.perform(delete("/users/4"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/1/friends/suggestions").param("count", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(5));
+
+        mockMvc.perform(get("/users/1/friends/suggestions").param("count", "0"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/users/9/friends/suggestions"))
+                .andExpect(status().isNotFound());
+    }
+
     private void postUser(User user) throws Exception {
         mockMvc.perform(
                 post("/users")
@@ -429,4 +646,15 @@ class UserControllerTest {
     private void likeFilm(Long filmId, Long userId) throws Exception {
         mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId));
     }
-}
\ No newline at end of file
+
+    private String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            content = result.getResponse().getContentAsString();
+        }
+        assertTrue(content.contains(expected), content);
+        return content;
+    }
+}
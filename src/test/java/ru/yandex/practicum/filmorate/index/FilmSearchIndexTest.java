@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FilmSearchIndexTest {
+
+    private FilmSearchIndex filmSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        FilmStorage filmStorage = mock(FilmStorage.class);
+        when(filmStorage.getFilms()).thenReturn(List.of(
+                film(1L, "The Matrix", new Director(1L, "Lana Wachowski")),
+                film(2L, "Matrix Reloaded", new Director(1L, "Lana Wachowski")),
+                film(3L, "Up", new Director(2L, "Pete Docter")),
+                film(4L, "Inception", new Director(3L, "Christopher Nolan"))));
+        filmSearchIndex = new FilmSearchIndex(filmStorage);
+        filmSearchIndex.load();
+    }
+
+    @Test
+    void searchByTitleIgnoresCase() {
+        assertEquals(Set.of(1L, 2L), filmSearchIndex.search("MATRIX", true, false));
+        assertEquals(Set.of(2L), filmSearchIndex.search("rix rel", true, false));
+        assertEquals(Set.of(4L), filmSearchIndex.search("cept", true, false));
+        assertTrue(filmSearchIndex.search("matrices", true, false).isEmpty());
+        assertTrue(filmSearchIndex.search("wachowski", true, false).isEmpty());
+    }
+
+    @Test
+    void searchByDirector() {
+        assertEquals(Set.of(1L, 2L), filmSearchIndex.search("wachow", false, true));
+        assertEquals(Set.of(4L), filmSearchIndex.search("NOLAN", false, true));
+        assertTrue(filmSearchIndex.search("matrix", false, true).isEmpty());
+    }
+
+    @Test
+    void searchByTitleAndDirector() {
+        assertEquals(Set.of(2L), filmSearchIndex.search("lo", true, false));
+        assertTrue(filmSearchIndex.search("lo", false, true).isEmpty());
+        assertEquals(Set.of(2L), filmSearchIndex.search("lo", true, true));
+        assertTrue(filmSearchIndex.search("no", true, false).isEmpty());
+        assertEquals(Set.of(4L), filmSearchIndex.search("no", false, true));
+        assertEquals(Set.of(4L), filmSearchIndex.search("no", true, true));
+        assertTrue(filmSearchIndex.search("ola", true, false).isEmpty());
+        assertEquals(Set.of(4L), filmSearchIndex.search("ola", true, true));
+    }
+
+    @Test
+    void searchShorterThanGramScansTexts() {
+        assertEquals(Set.of(3L), filmSearchIndex.search("up", true, false));
+        assertEquals(Set.of(1L, 2L, 4L), filmSearchIndex.search("i", true, false));
+        assertEquals(Set.of(3L), filmSearchIndex.search("pe", false, true));
+        assertTrue(filmSearchIndex.search("zz", true, true).isEmpty());
+    }
+
+    @Test
+    void indexFilmReplacesTitleAndDirectors() {
+        filmSearchIndex.indexFilm(film(2L, "Interstellar", new Director(3L, "Christopher Nolan")));
+
+        assertEquals(Set.of(1L), filmSearchIndex.search("matrix", true, false));
+        assertEquals(Set.of(2L), filmSearchIndex.search("stellar", true, false));
+        assertEquals(Set.of(1L), filmSearchIndex.search("wachowski", false, true));
+        assertEquals(Set.of(2L, 4L), filmSearchIndex.search("nolan", false, true));
+    }
+
+    @Test
+    void removeFilm() {
+        filmSearchIndex.removeFilm(1L);
+
+        assertEquals(Set.of(2L), filmSearchIndex.search("matrix", true, false));
+        assertEquals(Set.of(2L), filmSearchIndex.search("wachowski", false, true));
+        assertTrue(filmSearchIndex.search("the", true, false).isEmpty());
+    }
+
+    @Test
+    void updateDirectorRenamesDirectorOfFilms() {
+        filmSearchIndex.updateDirector(new Director(1L, "The Wachowskis"));
+
+        assertEquals(Set.of(1L, 2L), filmSearchIndex.search("wachowskis", false, true));
+        assertTrue(filmSearchIndex.search("lana", false, true).isEmpty());
+    }
+
+    @Test
+    void removeDirector() {
+        filmSearchIndex.removeDirector(1L);
+
+        assertTrue(filmSearchIndex.search("wachowski", false, true).isEmpty());
+        assertTrue(filmSearchIndex.search("lana", false, true).isEmpty());
+        assertEquals(Set.of(1L, 2L), filmSearchIndex.search("matrix", true, false));
+    }
+
+    private static Film film(Long id, String name, Director director) {
+        Film film = new Film(name, "Description", Date.valueOf(LocalDate.of(2000, 1, 1)), 100L,
+                new Mpa(1L, null));
+        film.setId(id);
+        film.getDirectors().add(director);
+        return film;
+    }
+}
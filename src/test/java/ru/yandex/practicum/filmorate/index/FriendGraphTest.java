@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FriendGraphTest {
+
+    private UserStorage userStorage;
+    private FriendGraph friendGraph;
+
+    @BeforeEach
+    void setUp() {
+        userStorage = mock(UserStorage.class);
+        when(userStorage.getEntriesUserIdFriendId()).thenReturn(List.of(
+                friendship(1L, 5L), friendship(1L, 3L), friendship(1L, 7L),
+                friendship(2L, 7L), friendship(2L, 3L), friendship(2L, 4L),
+                friendship(3L, 1L)));
+        friendGraph = new FriendGraph(userStorage);
+        friendGraph.load();
+    }
+
+    @Test
+    void loadFriendsAndFollowersSorted() {
+        assertEquals(List.of(3L, 5L, 7L), friendGraph.getFriendsId(1L));
+        assertEquals(List.of(1L, 2L), friendGraph.getFollowersId(3L));
+        assertEquals(3, friendGraph.getFriendsCount(2L));
+        assertEquals(2, friendGraph.getFollowersCount(7L));
+        assertTrue(friendGraph.getFriendsId(9L).isEmpty());
+    }
+
+    @Test
+    void friendshipIsOneWay() {
+        assertTrue(friendGraph.isFriend(1L, 5L));
+        assertFalse(friendGraph.isFriend(5L, 1L));
+        assertTrue(friendGraph.isFriend(1L, 3L));
+        assertTrue(friendGraph.isFriend(3L, 1L));
+    }
+
+    @Test
+    void getCommonFriendsId() {
+        assertEquals(List.of(3L, 7L), friendGraph.getCommonFriendsId(1L, 2L));
+        assertEquals(List.of(3L, 7L), friendGraph.getCommonFriendsId(2L, 1L));
+        assertTrue(friendGraph.getCommonFriendsId(1L, 3L).isEmpty());
+        assertTrue(friendGraph.getCommonFriendsId(1L, 9L).isEmpty());
+    }
+
+    @Test
+    void addAndRemoveFriend() {
+        friendGraph.addFriend(1L, 4L);
+        friendGraph.addFriend(1L, 4L);
+
+        assertEquals(List.of(3L, 4L, 5L, 7L), friendGraph.getFriendsId(1L));
+        assertEquals(List.of(1L, 2L), friendGraph.getFollowersId(4L));
+        assertEquals(List.of(3L, 4L, 7L), friendGraph.getCommonFriendsId(1L, 2L));
+
+        friendGraph.removeFriend(1L, 4L);
+        friendGraph.removeFriend(1L, 4L);
+
+        assertEquals(List.of(3L, 5L, 7L), friendGraph.getFriendsId(1L));
+        assertEquals(List.of(2L), friendGraph.getFollowersId(4L));
+    }
+
+    @Test
+    void removeUser() {
+        friendGraph.removeUser(3L);
+
+        assertEquals(List.of(5L, 7L), friendGraph.getFriendsId(1L));
+        assertEquals(List.of(4L, 7L), friendGraph.getFriendsId(2L));
+        assertTrue(friendGraph.getFriendsId(3L).isEmpty());
+        assertTrue(friendGraph.getFollowersId(3L).isEmpty());
+        assertTrue(friendGraph.getFollowersId(1L).isEmpty());
+        assertEquals(List.of(7L), friendGraph.getCommonFriendsId(1L, 2L));
+    }
+
+    @Test
+    void reloadFromStorage() {
+        friendGraph.addFriend(8L, 9L);
+        when(userStorage.getEntriesUserIdFriendId()).thenReturn(List.of(friendship(1L, 2L)));
+
+        friendGraph.reload();
+
+        assertEquals(List.of(2L), friendGraph.getFriendsId(1L));
+        assertTrue(friendGraph.getFriendsId(2L).isEmpty());
+        assertTrue(friendGraph.getFriendsId(8L).isEmpty());
+        assertTrue(friendGraph.getFollowersId(9L).isEmpty());
+    }
+
+    private static Map.Entry<Long, Long> friendship(Long userId, Long friendId) {
+        return new AbstractMap.SimpleEntry<>(userId, friendId);
+    }
+}
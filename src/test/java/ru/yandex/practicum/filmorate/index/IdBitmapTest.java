@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdBitmapTest {
+
+    @Test
+    void ofContainsIdsAcrossWords() {
+        IdBitmap bitmap = IdBitmap.of(List.of(130L, 1L, 63L, 64L, 1L, 100_000L));
+
+        assertEquals(5, bitmap.cardinality());
+        assertTrue(bitmap.contains(1L));
+        assertTrue(bitmap.contains(63L));
+        assertTrue(bitmap.contains(64L));
+        assertTrue(bitmap.contains(130L));
+        assertTrue(bitmap.contains(100_000L));
+        assertFalse(bitmap.contains(0L));
+        assertFalse(bitmap.contains(65L));
+        assertFalse(bitmap.contains(99_999L));
+        assertEquals(List.of(1L, 63L, 64L, 130L, 100_000L), toList(bitmap));
+    }
+
+    @Test
+    void emptyBitmap() {
+        assertTrue(IdBitmap.EMPTY.isEmpty());
+        assertEquals(0, IdBitmap.EMPTY.cardinality());
+        assertFalse(IdBitmap.EMPTY.contains(1L));
+        assertEquals(IdBitmap.EMPTY, IdBitmap.of(List.of()));
+        assertTrue(toList(IdBitmap.EMPTY).isEmpty());
+    }
+
+    @Test
+    void withAddsIdAndKeepsOriginal() {
+        IdBitmap original = IdBitmap.of(List.of(1L, 200L));
+
+        IdBitmap sameWord = original.with(2L);
+        IdBitmap newWordInMiddle = original.with(100L);
+        IdBitmap newWordFirst = IdBitmap.of(List.of(200L)).with(5L);
+
+        assertEquals(List.of(1L, 2L, 200L), toList(sameWord));
+        assertEquals(List.of(1L, 100L, 200L), toList(newWordInMiddle));
+        assertEquals(List.of(5L, 200L), toList(newWordFirst));
+        assertEquals(List.of(1L, 200L), toList(original));
+        assertSame(original, original.with(200L));
+        assertEquals(IdBitmap.of(List.of(1L, 100L, 200L)), newWordInMiddle);
+    }
+
+    @Test
+    void withoutRemovesIdAndEmptyWords() {
+        IdBitmap original = IdBitmap.of(List.of(1L, 2L, 100L, 200L));
+
+        IdBitmap wordKept = original.without(2L);
+        IdBitmap wordRemoved = original.without(100L);
+
+        assertEquals(List.of(1L, 100L, 200L), toList(wordKept));
+        assertEquals(List.of(1L, 2L, 200L), toList(wordRemoved));
+        assertEquals(IdBitmap.of(List.of(1L, 2L, 200L)), wordRemoved);
+        assertEquals(4, original.cardinality());
+        assertSame(original, original.without(3L));
+        assertSame(original, original.without(1000L));
+        assertTrue(IdBitmap.of(List.of(7L)).without(7L).isEmpty());
+        assertEquals(IdBitmap.EMPTY, IdBitmap.of(List.of(7L)).without(7L));
+    }
+
+    @Test
+    void andAndCardinality() {
+        IdBitmap first = IdBitmap.of(List.of(1L, 3L, 64L, 300L, 5000L));
+        IdBitmap second = IdBitmap.of(List.of(3L, 4L, 64L, 301L, 5000L, 9000L));
+
+        assertEquals(List.of(3L, 64L, 5000L), first.and(second));
+        assertEquals(3, first.andCardinality(second));
+        assertEquals(first.and(second), second.and(first));
+        assertTrue(first.and(IdBitmap.EMPTY).isEmpty());
+        assertEquals(0, first.andCardinality(IdBitmap.EMPTY));
+    }
+
+    @Test
+    void andNot() {
+        IdBitmap first = IdBitmap.of(List.of(1L, 3L, 64L, 300L, 5000L));
+        IdBitmap second = IdBitmap.of(List.of(3L, 4L, 64L, 301L, 5000L, 9000L));
+
+        assertEquals(List.of(1L, 300L), first.andNot(second));
+        assertEquals(List.of(4L, 301L, 9000L), second.andNot(first));
+        assertEquals(List.of(1L, 3L, 64L, 300L, 5000L), first.andNot(IdBitmap.EMPTY));
+        assertTrue(first.andNot(first).isEmpty());
+    }
+
+    @Test
+    void equalsIgnoresConstructionOrder() {
+        IdBitmap built = IdBitmap.EMPTY.with(300L).with(2L).with(70L);
+        IdBitmap collected = IdBitmap.of(List.of(70L, 2L, 300L));
+
+        assertEquals(collected, built);
+        assertEquals(collected.hashCode(), built.hashCode());
+        assertNotEquals(collected, built.with(3L));
+    }
+
+    private static List<Long> toList(IdBitmap bitmap) {
+        List<Long> ids = new ArrayList<>();
+        bitmap.forEach(ids::add);
+        return ids;
+    }
+}
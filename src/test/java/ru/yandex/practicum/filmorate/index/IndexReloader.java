@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.test.context.TestComponent;
+
+/**
+ * Перезагрузка всех индексов в памяти из хранилища после
+ * пересоздания таблиц скриптом тестовых данных. Подключается
+ * к тестам через @Import. Индексы перезагружаются в порядке
+ * зависимостей: производные индексы строятся по уже
+ * перезагруженному индексу лайков и графу дружбы.
+ */
+@TestComponent
+@Slf4j
+@RequiredArgsConstructor
+public class IndexReloader {
+
+    private final FriendGraph friendGraph;
+    private final FriendSuggestions friendSuggestions;
+    private final LikeIndex likeIndex;
+    private final MinHashIndex minHashIndex;
+    private final SimilarFilmsIndex similarFilmsIndex;
+    private final RecommendationCache recommendationCache;
+    private final PopularityLeaderboard popularityLeaderboard;
+    private final FilmSearchIndex filmSearchIndex;
+
+    public void reloadAll() {
+        friendGraph.reload();
+        friendSuggestions.reload();
+        likeIndex.reload();
+        minHashIndex.reload();
+        similarFilmsIndex.reload();
+        recommendationCache.reload();
+        popularityLeaderboard.reload();
+        filmSearchIndex.reload();
+        log.info("In-memory indexes are reloaded from the storage");
+    }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.index;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import ru.yandex.practicum.filmorate.config.RecommendationProperties;
+import ru.yandex.practicum.filmorate.config.RecommendationProperties.NeighborSearch;
+import ru.yandex.practicum.filmorate.model.Neighbor;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.neighbor.NeighborStorage;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Сравнение точного и приближённого (MinHash/LSH) поиска соседей
+ * на синтетических данных: пользователи лайкают в основном фильмы
+ * своего кластера вкусов. Запуск: mvn test -Dbenchmarks=true
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class RecommendationBenchmarkTest {
+
+    private static final int USERS = 100_000;
+    private static final int CLUSTERS = 1_000;
+    private static final int FILMS_PER_CLUSTER = 60;
+    private static final int LIKES_PER_USER = 20;
+    private static final int SAMPLE_USERS = 1_000;
+
+    @Test
+    void compareExactAndMinHashNeighborSearch() {
+        FilmStorage filmStorage = mock(FilmStorage.class);
+        when(filmStorage.getEntriesUserIdLikedFilmId()).thenReturn(generateLikes(new Random(7)));
+        LikeIndex likeIndex = new LikeIndex(filmStorage, new SimpleMeterRegistry());
+        likeIndex.load();
+
+        RecommendationEngine exact = createEngine(likeIndex, NeighborSearch.EXACT);
+        RecommendationEngine approximate = createEngine(likeIndex, NeighborSearch.MINHASH);
+
+        List<Long> sample = new Random(11).longs(SAMPLE_USERS, 1, USERS + 1).boxed().collect(Collectors.toList());
+        long exactNanos = 0;
+        long approximateNanos = 0;
+        long found = 0;
+        long expected = 0;
+        for (Long userId : sample) {
+            long start = System.nanoTime();
+            Set<Long> exactNeighbors = getNeighborsId(exact.findNeighbors(userId));
+            exactNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Set<Long> approximateNeighbors = getNeighborsId(approximate.findNeighbors(userId));
+            approximateNanos += System.nanoTime() - start;
+
+            expected += exactNeighbors.size();
+            approximateNeighbors.retainAll(exactNeighbors);
+            found += approximateNeighbors.size();
+        }
+
+        double recall = (double) found / expected;
+        log.info("Neighbor search over {} users: exact {} ms/user, minhash {} ms/user, recall@{} {}",
+                USERS, String.format("%.3f", exactNanos / 1e6 / SAMPLE_USERS),
+                String.format("%.3f", approximateNanos / 1e6 / SAMPLE_USERS),
+                new RecommendationProperties().getNeighbors(), String.format("%.3f", recall));
+        assertTrue(recall > 0, "MinHash search should find at least some exact neighbors");
+    }
+
+    private static RecommendationEngine createEngine(LikeIndex likeIndex, NeighborSearch neighborSearch) {
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.setNeighborSearch(neighborSearch);
+        MinHashIndex minHashIndex = new MinHashIndex(likeIndex, properties);
+        minHashIndex.load();
+        return new RecommendationEngine(likeIndex, minHashIndex, mock(NeighborStorage.class), properties);
+    }
+
+    private static List<Map.Entry<Long, Long>> generateLikes(Random random) {
+        List<Map.Entry<Long, Long>> likes = new ArrayList<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            int cluster = random.nextInt(CLUSTERS);
+            Set<Long> filmsId = new HashSet<>();
+            while (filmsId.size() < LIKES_PER_USER) {
+                if (random.nextInt(10) == 0) {
+                    filmsId.add(1L + random.nextInt(CLUSTERS * FILMS_PER_CLUSTER));
+                } else {
+                    filmsId.add(1L + (long) cluster * FILMS_PER_CLUSTER + random.nextInt(FILMS_PER_CLUSTER));
+                }
+            }
+            for (Long filmId : filmsId) {
+                likes.add(new AbstractMap.SimpleEntry<>(userId, filmId));
+            }
+        }
+        return likes;
+    }
+
+    private static Set<Long> getNeighborsId(List<Neighbor> neighbors) {
+        return neighbors.stream()
+                .map(Neighbor::getUserId)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.exception.ExistsException;
+import ru.yandex.practicum.filmorate.index.IndexReloader;
+import ru.yandex.practicum.filmorate.model.BulkLikeResult;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Пропускная способность пакетной загрузки лайков через сервис,
+ * как при POST /films/likes/bulk, в сравнении с добавлением
+ * по одному, как при PUT /films/{id}/like/{userId}. Учитываются
+ * запись в БД, индексы в памяти и события ленты.
+ * Запуск: mvn test -Dbenchmarks=true
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@SpringBootTest
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@Import(IndexReloader.class)
+class BulkLikesBenchmarkTest {
+
+    private static final int FILMS = 10_000;
+    private static final int USERS = 10_000;
+    private static final int SINGLE_LIKES = 5_000;
+    private static final int BULK_LIKES = 200_000;
+    private static final double MIN_SPEEDUP = 5;
+
+    @Autowired
+    private FilmService filmService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private IndexReloader indexReloader;
+
+    @Test
+    @Sql(scripts = {"file:./src/test/java/setup_test.sql"})
+    void addLikesInBulkAndOneByOne() {
+        populate(jdbcTemplate);
+        indexReloader.reloadAll();
+        Random random = new Random(7);
+
+        long singleAdded = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < SINGLE_LIKES; i++) {
+            FilmLike like = createLike(random);
+            try {
+                filmService.addLikeFilm(like.getFilmId(), like.getUserId());
+                singleAdded++;
+            } catch (ExistsException e) {
+                log.debug("A like is generated twice: {}", like);
+            }
+        }
+        double singleLikesPerSecond = SINGLE_LIKES / ((System.nanoTime() - start) / 1e9);
+
+        List<FilmLike> likes = new ArrayList<>(BULK_LIKES);
+        for (int i = 0; i < BULK_LIKES; i++) {
+            likes.add(createLike(random));
+        }
+        start = System.nanoTime();
+        BulkLikeResult result = filmService.addLikesBulk(likes.iterator());
+        double bulkLikesPerSecond = BULK_LIKES / ((System.nanoTime() - start) / 1e9);
+
+        assertEquals(BULK_LIKES, result.getOutcomes().size());
+        assertEquals(BULK_LIKES, result.getAdded() + result.getAlreadyLiked());
+        long likesCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes", Long.class);
+        assertEquals(singleAdded + result.getAdded(), likesCount);
+        assertEquals(likesCount, jdbcTemplate.queryForObject("SELECT SUM(like_count) FROM films", Long.class));
+        log.info("Likes one by one: {} likes/s; bulk import of {} likes: {} likes/s, {} added",
+                Math.round(singleLikesPerSecond), BULK_LIKES, Math.round(bulkLikesPerSecond), result.getAdded());
+        assertTrue(bulkLikesPerSecond >= MIN_SPEEDUP * singleLikesPerSecond,
+                String.format("Bulk import must be at least %.0f times faster than likes one by one", MIN_SPEEDUP));
+    }
+
+    private static FilmLike createLike(Random random) {
+        return new FilmLike((long) random.nextInt(FILMS) + 1, (long) random.nextInt(USERS) + 1);
+    }
+
+    private static void populate(JdbcTemplate jdbcTemplate) {
+        List<Object[]> films = new ArrayList<>();
+        for (int i = 0; i < FILMS; i++) {
+            films.add(new Object[]{"film" + i});
+        }
+        jdbcTemplate.batchUpdate("" +
+                "INSERT INTO films (name, description, release_date, duration, mpa_id) " +
+                "VALUES (?, 'description', '2000-01-01', 100, 1)", films);
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new Object[]{"user" + i, "user" + i + "@mail.ru", "user" + i, "2000-01-01"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (name, email, login, birthday) VALUES (?, ?, ?, ?)", users);
+    }
+}
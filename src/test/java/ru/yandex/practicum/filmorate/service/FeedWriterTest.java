@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.config.FeedProperties;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.feed.FeedStorage;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class FeedWriterTest {
+
+    private FeedStorage feedStorage;
+    private SimpleMeterRegistry meterRegistry;
+    private FeedProperties feedProperties;
+    private FeedWriter feedWriter;
+    private final List<List<Long>> batches = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        feedStorage = mock(FeedStorage.class);
+        doAnswer(invocation -> batches.add(getEventsId(invocation.getArgument(0))))
+                .when(feedStorage).saveUserEvents(anyList());
+        meterRegistry = new SimpleMeterRegistry();
+        feedProperties = new FeedProperties();
+        feedProperties.getWriter().setFlushIntervalMs(60_000);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (feedWriter != null) {
+            feedWriter.stop();
+        }
+    }
+
+    @Test
+    void writeSynchronouslyWhenAsyncIsDisabled() {
+        feedProperties.getWriter().setAsyncEnabled(false);
+        createWriter();
+
+        feedWriter.write(createEvent(1L));
+
+        assertEquals(List.of(List.of(1L)), batches);
+    }
+
+    @Test
+    void writeAllSynchronouslyInOneBatch() {
+        feedProperties.getWriter().setAsyncEnabled(false);
+        createWriter();
+
+        feedWriter.writeAll(List.of(createEvent(1L), createEvent(2L), createEvent(3L)));
+        feedWriter.writeAll(List.of());
+
+        assertEquals(List.of(List.of(1L, 2L, 3L)), batches);
+    }
+
+    @Test
+    void writeInBatchesOfFlushSize() {
+        feedProperties.getWriter().setFlushSize(2);
+        createWriter();
+
+        for (long i = 1; i <= 4; i++) {
+            feedWriter.write(createEvent(i));
+        }
+
+        verify(feedStorage, timeout(5_000).atLeast(2)).saveUserEvents(anyList());
+        waitForEvents(4);
+        assertEquals(List.of(1L, 2L), batches.get(0));
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 2), "Batches must not exceed flush size");
+        assertEquals(List.of(1L, 2L, 3L, 4L), getWrittenEventsId());
+    }
+
+    @Test
+    void flushOnRequestThreadWhenBufferIsFull() {
+        feedProperties.getWriter().setCapacity(2);
+        createWriter();
+
+        for (long i = 1; i <= 3; i++) {
+            feedWriter.write(createEvent(i));
+        }
+
+        assertEquals(List.of(List.of(1L, 2L)), batches);
+        assertEquals(1, meterRegistry.counter("filmorate.feed.writer.backpressure").count());
+    }
+
+    @Test
+    void drainBufferOnShutdown() throws InterruptedException {
+        createWriter();
+        for (long i = 1; i <= 3; i++) {
+            feedWriter.write(createEvent(i));
+        }
+        assertTrue(batches.isEmpty());
+
+        feedWriter.stop();
+        feedWriter = null;
+
+        assertEquals(List.of(List.of(1L, 2L, 3L)), batches);
+    }
+
+    private void createWriter() {
+        feedWriter = new FeedWriter(feedStorage, mock(FeedStreamDispatcher.class), mock(TimelineFanOut.class),
+                feedProperties, meterRegistry);
+        feedWriter.start();
+    }
+
+    private void waitForEvents(int count) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (getWrittenEventsId().size() < count && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private List<Long> getWrittenEventsId() {
+        return batches.stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> getEventsId(List<Event> events) {
+        List<Long> eventsId = new ArrayList<>();
+        for (Event event : events) {
+            eventsId.add(event.getEventId());
+        }
+        return eventsId;
+    }
+
+    private static Event createEvent(Long eventId) {
+        return new Event(eventId, 1L, 1L, "LIKE", "ADD", new Date());
+    }
+}
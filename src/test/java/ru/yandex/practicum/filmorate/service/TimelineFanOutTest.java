@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.config.FeedProperties;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.feed.FeedStorage;
+import ru.yandex.practicum.filmorate.storage.timeline.TimelineStorage;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class TimelineFanOutTest {
+
+    private static final long AUTHOR_ID = 7L;
+
+    private FeedStorage feedStorage;
+    private TimelineStorage timelineStorage;
+    private FriendGraph friendGraph;
+    private TimelineFanOut timelineFanOut;
+
+    @BeforeEach
+    void setUp() {
+        feedStorage = mock(FeedStorage.class);
+        timelineStorage = mock(TimelineStorage.class);
+        friendGraph = mock(FriendGraph.class);
+        FeedProperties feedProperties = new FeedProperties();
+        feedProperties.getTimeline().setFanOutFollowersLimit(2);
+        when(timelineStorage.getReadTimeAuthorsId()).thenReturn(Set.of());
+        when(feedStorage.getEventsAfter(anyLong(), anyInt())).thenReturn(List.of());
+        timelineFanOut = new TimelineFanOut(feedStorage, timelineStorage, friendGraph, feedProperties);
+        timelineFanOut.load();
+    }
+
+    @Test
+    void fanOutEventsOfAuthorWithinLimit() {
+        when(friendGraph.getFollowersCount(AUTHOR_ID)).thenReturn(2);
+        when(friendGraph.getFollowersId(AUTHOR_ID)).thenReturn(List.of(1L, 2L));
+        when(feedStorage.getEventsAfter(0L, 500)).thenReturn(List.of(createEvent(10L)));
+
+        timelineFanOut.fanOut(0L);
+
+        verify(timelineStorage).addEvents(Map.of(1L, List.of(10L), 2L, List.of(10L)));
+        verify(timelineStorage, never()).addReadTimeAuthor(any());
+        assertTrue(timelineFanOut.isFannedOutOnWrite(AUTHOR_ID));
+    }
+
+    @Test
+    void keepAuthorInReadModeAfterCrossingLimit() {
+        when(friendGraph.getFollowersCount(AUTHOR_ID)).thenReturn(3);
+        when(feedStorage.getEventsAfter(0L, 500)).thenReturn(List.of(createEvent(10L)));
+
+        timelineFanOut.fanOut(0L);
+
+        verify(timelineStorage).addReadTimeAuthor(AUTHOR_ID);
+        verify(timelineStorage, never()).addEvents(any());
+        assertFalse(timelineFanOut.isFannedOutOnWrite(AUTHOR_ID));
+
+        when(friendGraph.getFollowersCount(AUTHOR_ID)).thenReturn(1);
+        when(feedStorage.getEventsAfter(10L, 500)).thenReturn(List.of(createEvent(11L)));
+
+        timelineFanOut.fanOut(10L);
+        timelineFanOut.onFriendAdded(1L, AUTHOR_ID);
+
+        verify(timelineStorage, times(1)).addReadTimeAuthor(AUTHOR_ID);
+        verify(timelineStorage, never()).addEvents(any());
+        verify(timelineStorage, never()).addFriendEvents(any(), any(), anyInt());
+        assertFalse(timelineFanOut.isFannedOutOnWrite(AUTHOR_ID));
+    }
+
+    @Test
+    void restoreReadModeFromStorage() {
+        when(timelineStorage.getReadTimeAuthorsId()).thenReturn(Set.of(AUTHOR_ID));
+
+        timelineFanOut.reload();
+
+        assertFalse(timelineFanOut.isFannedOutOnWrite(AUTHOR_ID));
+        assertTrue(timelineFanOut.isFannedOutOnWrite(1L));
+    }
+
+    private static Event createEvent(Long eventId) {
+        return new Event(eventId, AUTHOR_ID, 1L, "LIKE", "ADD", new Date());
+    }
+}
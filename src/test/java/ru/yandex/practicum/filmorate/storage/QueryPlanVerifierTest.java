@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "filmorate.query-plans.verification=fail")
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+class QueryPlanVerifierTest {
+
+    @Autowired
+    private QueryPlanVerifier queryPlanVerifier;
+
+    @Test
+    void hotQueriesReadByIndexConditions() {
+        assertDoesNotThrow(queryPlanVerifier::verifyQueryPlans);
+    }
+
+    @Test
+    void findFullTableScan() {
+        String plan = "" +
+                "SELECT\n" +
+                "    \"USER_ID\"\n" +
+                "FROM \"PUBLIC\".\"FRIENDS\"\n" +
+                "    /* PUBLIC.FRIENDS.tableScan */";
+
+        assertEquals(List.of("plans a full table scan"), QueryPlanVerifier.findProblems(plan));
+    }
+
+    @Test
+    void findIndexWithoutCondition() {
+        String plan = "" +
+                "SELECT\n" +
+                "    \"FILM_ID\"\n" +
+                "FROM \"PUBLIC\".\"LIKES\"\n" +
+                "    /* PUBLIC.LIKES_USER_ID_IDX */\n" +
+                "ORDER BY 1";
+        String maxPlan = "" +
+                "SELECT\n" +
+                "    COALESCE(MAX(\"EVENT_ID\"), 0)\n" +
+                "FROM \"PUBLIC\".\"USERS_FEED\"\n" +
+                "    /* PUBLIC.CONSTRAINT_INDEX_B */\n" +
+                "/* direct lookup */";
+
+        assertEquals(List.of("walks an index without a condition"), QueryPlanVerifier.findProblems(plan));
+        assertEquals(List.of(), QueryPlanVerifier.findProblems(maxPlan));
+    }
+
+    @Test
+    void findSortBeforeLimit() {
+        String plan = "" +
+                "SELECT\n" +
+                "    \"EVENT_ID\"\n" +
+                "FROM \"PUBLIC\".\"USERS_FEED\"\n" +
+                "    /* PUBLIC.USERS_FEED_USER_ID_EVENT_ID_IDX: USER_ID = ?1\n" +
+                "        AND EVENT_ID < ?2\n" +
+                "     */\n" +
+                "WHERE (\"USER_ID\" = ?1)\n" +
+                "    AND (\"EVENT_ID\" < ?2)\n" +
+                "ORDER BY 1 DESC\n" +
+                "FETCH FIRST ?3 ROWS ONLY";
+        String sortedPlan = "" +
+                "SELECT\n" +
+                "    \"EVENT_ID\"\n" +
+                "FROM \"PUBLIC\".\"USERS_FEED\"\n" +
+                "    /* PUBLIC.PRIMARY_KEY_B: EVENT_ID > ?1 */\n" +
+                "WHERE \"EVENT_ID\" > ?1\n" +
+                "ORDER BY 1\n" +
+                "FETCH FIRST ?2 ROWS ONLY\n" +
+                "/* index sorted */";
+
+        assertEquals(List.of("sorts all matching rows before the limit"), QueryPlanVerifier.findProblems(plan));
+        assertEquals(List.of(), QueryPlanVerifier.findProblems(sortedPlan));
+    }
+}
@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.storage.review;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.model.Review;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Пропускная способность постраничного чтения отзывов фильма
+ * со 100 тысячами отзывов: keyset-пагинация по (useful, review_id)
+ * против пагинации через OFFSET. Оба способа читают одни и те же
+ * столбцы в одном порядке. Запуск: mvn test -Dbenchmarks=true
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ReviewPaginationBenchmarkTest {
+
+    private static final int REVIEWS = 100_000;
+    private static final int USERS = 1_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int DEEP_PAGES = 100;
+    private static final String OFFSET_QUERY = "" +
+            "SELECT r.review_id, r.film_id, r.user_id, r.content, r.is_positive, r.useful " +
+            "FROM reviews AS r " +
+            "WHERE r.film_id = ? " +
+            "ORDER BY r.film_id, r.useful DESC, r.review_id " +
+            "LIMIT ? OFFSET ?";
+
+    @Test
+    void pageThroughFilmReviews() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:reviews_benchmark;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new FileSystemResource("src/main/resources/schema.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        populate(jdbcTemplate, new Random(7));
+        DbReviewStorage reviewStorage = new DbReviewStorage(jdbcTemplate);
+        int deepPagesStart = REVIEWS / PAGE_SIZE - DEEP_PAGES;
+
+        long start = System.nanoTime();
+        long deepStart = 0;
+        int read = 0;
+        long afterUseful = Long.MAX_VALUE;
+        long afterId = 0;
+        Review previous = null;
+        List<Review> page;
+        do {
+            if (read == deepPagesStart * PAGE_SIZE) {
+                deepStart = System.nanoTime();
+            }
+            page = reviewStorage.getReviewsPage(1L, afterUseful, afterId, PAGE_SIZE);
+            for (Review review : page) {
+                if (previous != null) {
+                    assertTrue(previous.getUseful() > review.getUseful()
+                            || previous.getUseful().equals(review.getUseful())
+                            && previous.getReviewId() < review.getReviewId(), "Reviews must be ordered by the key");
+                }
+                previous = review;
+            }
+            read += page.size();
+            if (!page.isEmpty()) {
+                afterUseful = previous.getUseful();
+                afterId = previous.getReviewId();
+            }
+        } while (page.size() == PAGE_SIZE);
+        long keysetDeepNanos = System.nanoTime() - deepStart;
+        long keysetNanos = System.nanoTime() - start;
+        assertEquals(REVIEWS, read);
+
+        start = System.nanoTime();
+        int offsetRead = 0;
+        do {
+            if (offsetRead == deepPagesStart * PAGE_SIZE) {
+                deepStart = System.nanoTime();
+            }
+            page = jdbcTemplate.query(OFFSET_QUERY, ReviewPaginationBenchmarkTest::mapRowToReview,
+                    1L, PAGE_SIZE, offsetRead);
+            offsetRead += page.size();
+        } while (page.size() == PAGE_SIZE);
+        long offsetDeepNanos = System.nanoTime() - deepStart;
+        long offsetNanos = System.nanoTime() - start;
+        assertEquals(REVIEWS, offsetRead);
+
+        log.info("Paging through {} reviews by {}: keyset {} reviews/s, offset {} reviews/s; "
+                        + "last {} pages: keyset {} ms, offset {} ms",
+                REVIEWS, PAGE_SIZE, Math.round(REVIEWS / (keysetNanos / 1e9)),
+                Math.round(REVIEWS / (offsetNanos / 1e9)), DEEP_PAGES, keysetDeepNanos / 1_000_000,
+                offsetDeepNanos / 1_000_000);
+        assertTrue(keysetDeepNanos < offsetDeepNanos, "Keyset pages must be faster than offset pages deep in the list");
+        assertTrue(keysetNanos < offsetNanos, "Keyset paging must be faster than offset paging");
+    }
+
+    private static void populate(JdbcTemplate jdbcTemplate, Random random) {
+        jdbcTemplate.update("INSERT INTO mpa (mpa_id, name) VALUES (1, 'G')");
+        jdbcTemplate.update("" +
+                "INSERT INTO films (name, description, release_date, duration, mpa_id) " +
+                "VALUES ('film', 'description', '2000-01-01', 100, 1)");
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new Object[]{"user" + i, "user" + i + "@mail.ru", "user" + i, "2000-01-01"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (name, email, login, birthday) VALUES (?, ?, ?, ?)", users);
+        List<Object[]> reviews = new ArrayList<>();
+        for (int i = 0; i < REVIEWS; i++) {
+            reviews.add(new Object[]{random.nextInt(USERS) + 1, "review " + i, random.nextBoolean(),
+                    random.nextInt(201) - 100});
+        }
+        jdbcTemplate.batchUpdate("" +
+                "INSERT INTO reviews (film_id, user_id, content, is_positive, useful) " +
+                "VALUES (1, ?, ?, ?, ?)", reviews);
+    }
+
+    private static Review mapRowToReview(ResultSet rs, int rowNum) throws SQLException {
+        return new Review(
+                rs.getLong("review_id"),
+                rs.getLong("user_id"),
+                rs.getLong("film_id"),
+                rs.getString("content"),
+                rs.getBoolean("is_positive"),
+                rs.getLong("useful")
+        );
+    }
+}